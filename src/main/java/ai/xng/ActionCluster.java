@@ -11,6 +11,11 @@ public class ActionCluster extends PosteriorCluster<ActionCluster.Node> {
     this.exceptionHandler = exceptionHandler;
   }
 
+  public ActionCluster(final NodeRegistry registry, final DataCluster.MutableNode<? super Throwable> exceptionHandler) {
+    super(registry);
+    this.exceptionHandler = exceptionHandler;
+  }
+
   public class Node extends ActionNode {
     private final Link link;
 
@@ -19,6 +24,11 @@ public class ActionCluster extends PosteriorCluster<ActionCluster.Node> {
       link = new Link(this);
     }
 
+    @Override
+    public int getId() {
+      return link.getId();
+    }
+
     @Override
     public ActionCluster getCluster() {
       return ActionCluster.this;
@@ -1,69 +1,301 @@
 package ai.xng;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
 
-import lombok.AllArgsConstructor;
-import lombok.val;
+import ai.xng.util.FixedPoint;
 
+/**
+ * A piecewise linear integrator. Segment fields are kept in parallel primitive
+ * arrays so that evaluation is a flat scan over contiguous memory rather than a
+ * walk over segment objects.
+ */
 public class BakingIntegrator {
-  @AllArgsConstructor
-  public static class Segment {
-    public long t0, t1;
-    public float v0, rate;
+  private static final int INITIAL_CAPACITY = 4;
+
+  /**
+   * Sentinel time returned by {@link #nextIntercept(long, float)} when there is
+   * no intercept.
+   */
+  public static final long NEVER = Long.MAX_VALUE;
+
+  public enum Arithmetic {
+    FLOAT,
+    /**
+     * Stores values and rates as {@link FixedPoint} integers. Threshold solving is
+     * then pure integer math and reproducible bit-for-bit across runs and
+     * machines, at the cost of quantizing rates to 2<sup>-32</sup> per
+     * millisecond.
+     */
+    FIXED_POINT
+  }
+
+  /**
+   * A handle to a segment in the integrator. The time bounds of a segment are
+   * fixed, but its value and rate may be adjusted while it is live. Once a
+   * segment has been evicted, only its bounds remain valid.
+   */
+  public class Segment {
+    public final long t0, t1;
+    private int index;
+
+    private Segment(final long t0, final long t1, final int index) {
+      this.t0 = t0;
+      this.t1 = t1;
+      this.index = index;
+    }
+
+    private int index() {
+      if (index < 0) {
+        throw new IllegalStateException("Segment has been evicted.");
+      }
+      return index;
+    }
+
+    public float v0() {
+      final int i = index();
+      return fixedPoint() ? FixedPoint.toFloat(fv0[i]) : v0[i];
+    }
+
+    public float rate() {
+      final int i = index();
+      return fixedPoint() ? FixedPoint.toFloat(frate[i]) : rate[i];
+    }
+
+    public void setRate(final float rate) {
+      final int i = index();
+      if (fixedPoint()) {
+        frate[i] = FixedPoint.fromFloat(rate);
+      } else {
+        BakingIntegrator.this.rate[i] = rate;
+      }
+    }
+
+    /**
+     * Sets the initial value of this segment to its current value at {@code t}
+     * and then sets a new rate. The value is carried over in the integrator's
+     * native arithmetic.
+     */
+    public void rebase(final long t, final float rate) {
+      final int i = index();
+      if (fixedPoint()) {
+        fv0[i] += frate[i] * (t - t0);
+      } else {
+        v0[i] += BakingIntegrator.this.rate[i] * (t - t0);
+      }
+      setRate(rate);
+    }
+
+    /**
+     * Sets this segment to start at the final value of {@code predecessor} and
+     * descend linearly to zero at its end.
+     */
+    public void descendFrom(final Segment predecessor) {
+      final int i = index(), p = predecessor.index();
+      if (fixedPoint()) {
+        fv0[i] = fv0[p] + frate[p] * predecessor.duration();
+        frate[i] = FixedPoint.roundDiv(-fv0[i], duration());
+      } else {
+        v0[i] = v0[p] + rate[p] * predecessor.duration();
+        rate[i] = -v0[i] / duration();
+      }
+    }
 
     public float evaluate(final long t) {
-      return v0 + rate * (t - t0);
+      final int i = index();
+      return fixedPoint() ? FixedPoint.toFloat(fv0[i] + frate[i] * (t - t0)) : v0[i] + rate[i] * (t - t0);
     }
 
     public long duration() {
       return t1 - t0;
     }
+
+    @Override
+    public String toString() {
+      return index < 0 ? String.format("[%d, %d) evicted", t0, t1)
+          : String.format("[%d, %d) %s + %s/ms", t0, t1, v0(), rate());
+    }
   }
 
   public static record Ray(float value, float rate) {
   }
 
-  private final List<Segment> segments = new ArrayList<>();
+  public final Arithmetic arithmetic;
+
+  private long[] t0 = new long[INITIAL_CAPACITY], t1 = new long[INITIAL_CAPACITY];
+  // Exactly one of the float or fixed-point value arrays is used, depending on
+  // the arithmetic mode.
+  private float[] v0, rate;
+  private long[] fv0, frate;
+  private Segment[] segments = new Segment[INITIAL_CAPACITY];
+  private int size;
+
+  public BakingIntegrator() {
+    this(Arithmetic.FLOAT);
+  }
+
+  public BakingIntegrator(final Arithmetic arithmetic) {
+    this.arithmetic = arithmetic;
+    if (fixedPoint()) {
+      fv0 = new long[INITIAL_CAPACITY];
+      frate = new long[INITIAL_CAPACITY];
+    } else {
+      v0 = new float[INITIAL_CAPACITY];
+      rate = new float[INITIAL_CAPACITY];
+    }
+  }
 
-  public void add(final Segment segment) {
-    segments.add(segment);
+  private boolean fixedPoint() {
+    return arithmetic == Arithmetic.FIXED_POINT;
+  }
+
+  /**
+   * Adds a segment that runs linearly from {@code v0} at {@code t0} to
+   * {@code v1} at {@code t1}. The rate is derived in the integrator's native
+   * arithmetic.
+   */
+  public Segment add(final long t0, final long t1, final float v0, final float v1) {
+    if (size == segments.length) {
+      final int capacity = 2 * size;
+      this.t0 = Arrays.copyOf(this.t0, capacity);
+      this.t1 = Arrays.copyOf(this.t1, capacity);
+      if (fixedPoint()) {
+        fv0 = Arrays.copyOf(fv0, capacity);
+        frate = Arrays.copyOf(frate, capacity);
+      } else {
+        this.v0 = Arrays.copyOf(this.v0, capacity);
+        rate = Arrays.copyOf(rate, capacity);
+      }
+      segments = Arrays.copyOf(segments, capacity);
+    }
+
+    this.t0[size] = t0;
+    this.t1[size] = t1;
+    if (fixedPoint()) {
+      fv0[size] = FixedPoint.fromFloat(v0);
+      frate[size] = FixedPoint.roundDiv(FixedPoint.fromFloat(v1) - fv0[size], t1 - t0);
+    } else {
+      this.v0[size] = v0;
+      rate[size] = (v1 - v0) / (t1 - t0);
+    }
+    return segments[size] = new Segment(t0, t1, size++);
   }
 
   public void evict(final long t) {
-    segments.removeIf(s -> s.t1 <= t);
+    int dest = 0;
+    for (int src = 0; src < size; ++src) {
+      final Segment segment = segments[src];
+      if (t1[src] <= t) {
+        segment.index = -1;
+        continue;
+      }
+
+      if (dest != src) {
+        t0[dest] = t0[src];
+        t1[dest] = t1[src];
+        if (fixedPoint()) {
+          fv0[dest] = fv0[src];
+          frate[dest] = frate[src];
+        } else {
+          v0[dest] = v0[src];
+          rate[dest] = rate[src];
+        }
+        segments[dest] = segment;
+        segment.index = dest;
+      }
+      ++dest;
+    }
+    Arrays.fill(segments, dest, size, null);
+    size = dest;
   }
 
   public Ray evaluate(final long t) {
-    float vt = 0, rate = 0;
-    for (val s : segments) {
-      if (s.t0 <= t && t < s.t1) {
-        vt += s.evaluate(t);
-        rate += s.rate;
+    if (fixedPoint()) {
+      long vt = 0, rt = 0;
+      for (int i = 0; i < size; ++i) {
+        if (t0[i] <= t && t < t1[i]) {
+          vt += fv0[i] + frate[i] * (t - t0[i]);
+          rt += frate[i];
+        }
       }
+      return new Ray(FixedPoint.toFloat(vt), FixedPoint.toFloat(rt));
     }
-    return new Ray(vt, rate);
-  }
 
-  public Optional<Long> nextCriticalPoint(final long t) {
-    Optional<Long> next = Optional.empty();
-    for (val s : segments) {
-      Optional<Long> candidate = Optional.empty();
-      if (s.t0 > t) {
-        candidate = Optional.of(s.t0);
-      } else if (s.t1 > t) {
-        candidate = Optional.of(s.t1);
+    float vt = 0, rt = 0;
+    for (int i = 0; i < size; ++i) {
+      if (t0[i] <= t && t < t1[i]) {
+        vt += v0[i] + rate[i] * (t - t0[i]);
+        rt += rate[i];
       }
-      if (candidate.isPresent() && (!next.isPresent() || candidate.get() < next.get())) {
+    }
+    return new Ray(vt, rt);
+  }
+
+  private long nextCriticalPointOrMax(final long t) {
+    long next = NEVER;
+    for (int i = 0; i < size; ++i) {
+      final long candidate = t0[i] > t ? t0[i] : t1[i];
+      if (candidate > t && candidate < next) {
         next = candidate;
       }
     }
     return next;
   }
 
+  public Optional<Long> nextCriticalPoint(final long t) {
+    final long next = nextCriticalPointOrMax(t);
+    return next == NEVER ? Optional.empty() : Optional.of(next);
+  }
+
+  /**
+   * Finds the earliest time at or after {@code t} at which the integrator rises
+   * to {@code threshold} from below, or {@link #NEVER} if it does not.
+   */
+  public long nextIntercept(long t, final float threshold) {
+    if (fixedPoint()) {
+      final long fthreshold = FixedPoint.fromFloat(threshold);
+      while (true) {
+        long vt = 0, rt = 0;
+        for (int i = 0; i < size; ++i) {
+          if (t0[i] <= t && t < t1[i]) {
+            vt += fv0[i] + frate[i] * (t - t0[i]);
+            rt += frate[i];
+          }
+        }
+        final long next = nextCriticalPointOrMax(t);
+
+        if (vt < fthreshold && rt > 0) {
+          final long intercept = t + FixedPoint.ceilDiv(fthreshold - vt, rt);
+          if (intercept <= next) {
+            return intercept;
+          }
+        }
+
+        if (next == NEVER)
+          return NEVER;
+        t = next;
+      }
+    }
+
+    while (true) {
+      final Ray trajectory = evaluate(t);
+      final long next = nextCriticalPointOrMax(t);
+
+      if (trajectory.value() < threshold && trajectory.rate() > 0) {
+        final long intercept = t + (long) Math.ceil((threshold - trajectory.value()) / trajectory.rate());
+        if (intercept <= next) {
+          return intercept;
+        }
+      }
+
+      if (next == NEVER)
+        return NEVER;
+      t = next;
+    }
+  }
+
   @Override
   public String toString() {
-    return segments.toString();
+    return Arrays.toString(Arrays.copyOf(segments, size));
   }
-}
\ No newline at end of file
+}
@@ -13,6 +13,11 @@ public class BiCluster extends PosteriorCluster<BiCluster.Node> {
     this.comment = comment;
   }
 
+  public BiCluster(final NodeRegistry registry, final String comment) {
+    super(registry);
+    this.comment = comment;
+  }
+
   public class Node extends BiNode {
     private final Link link;
     private final String comment;
@@ -26,6 +31,11 @@ public class BiCluster extends PosteriorCluster<BiCluster.Node> {
       this.comment = comment;
     }
 
+    @Override
+    public int getId() {
+      return link.getId();
+    }
+
     @Override
     public BiCluster getCluster() {
       return BiCluster.this;
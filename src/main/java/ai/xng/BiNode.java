@@ -3,9 +3,9 @@ package ai.xng;
 import java.util.Optional;
 
 public abstract class BiNode implements Prior, Posterior {
-  private final Node.Trait node = new Node.Trait();
+  private final Node.Trait node = new Node.Trait(this);
   private final Posterior.Trait input = new Posterior.Trait(this);
-  private final Prior.Trait output = new Prior.Trait(this);
+  private final Prior.Trait output = new Prior.Trait();
 
   @Override
   public LazyIntegrator getTrace() {
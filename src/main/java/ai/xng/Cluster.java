@@ -4,32 +4,186 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
 
 import io.reactivex.Observable;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
+import lombok.Getter;
 import lombok.val;
 
+/**
+ * A collection of nodes that tracks their activation order. The activation
+ * order is kept in a lock-free {@link RecencyQueue}, so links may be promoted
+ * and {@link #activations()} read from multiple threads. Reads are weakly
+ * consistent with concurrent promotions.
+ */
 public abstract class Cluster<T extends Node> implements Serializable {
+  /**
+   * The maximum number of collected activation entries purged per promotion.
+   */
+  private static final int PURGE_BATCH = 16;
+
+  /**
+   * The time span covered by each bucket of the activation index.
+   */
+  private static final long BUCKET_WIDTH = 16;
+  /**
+   * The number of buckets in the activation index ring, enough to cover the
+   * longest window over which traces are sampled.
+   */
+  private static final int BUCKETS = (int) (Node.TRACE_SAMPLE_TTL / BUCKET_WIDTH) + 2;
+  /**
+   * The number of activation records per chunk of a bucket.
+   */
+  private static final int CHUNK_SIZE = 32;
+
+  /**
+   * The minimum time between cleaning increments.
+   */
+  public static final long CLEAN_INTERVAL = IntegrationProfile.PERSISTENT.period();
+  /**
+   * The maximum number of activation entries examined per cleaning increment.
+   */
+  private static final int CLEAN_BATCH = 256;
+  /**
+   * The time budget per cleaning increment.
+   */
+  private static final long CLEAN_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  /**
+   * A weak activation entry that knows its own link so that it can be unlinked
+   * once its node has been collected.
+   */
+  private static class ActivationRef<T> extends WeakReference<T> {
+    RecencyQueue<WeakReference<T>>.Link link;
+    /**
+     * The time of the node's latest record in the activation index.
+     */
+    volatile long indexed = NodeRegistry.NEVER;
+
+    ActivationRef(final T node, final ReferenceQueue<? super T> queue) {
+      super(node, queue);
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicLongFieldUpdater<ActivationRef> INDEXED = AtomicLongFieldUpdater
+      .newUpdater(ActivationRef.class, "indexed");
+
+  /**
+   * A fixed block of activation records. A writer reserves a slot, writes its
+   * time and then publishes its reference, so readers skip slots that are
+   * reserved but not yet published.
+   */
+  private class Chunk {
+    final Chunk next;
+    final AtomicInteger reserved = new AtomicInteger();
+    final long[] times = new long[CHUNK_SIZE];
+    final AtomicReferenceArray<ActivationRef<T>> refs = new AtomicReferenceArray<>(CHUNK_SIZE);
+
+    Chunk(final Chunk next) {
+      this.next = next;
+    }
+  }
+
+  /**
+   * The activation records for one {@link #BUCKET_WIDTH} span of time, newest
+   * chunk first. A record is current only if it is its node's latest.
+   */
+  private class Bucket {
+    final long epoch;
+    final AtomicReference<Chunk> head = new AtomicReference<>(new Chunk(null));
+
+    Bucket(final long epoch) {
+      this.epoch = epoch;
+    }
+
+    void add(final ActivationRef<T> ref, final long t) {
+      while (true) {
+        final Chunk chunk = head.get();
+        final int i = chunk.reserved.getAndIncrement();
+        if (i < CHUNK_SIZE) {
+          chunk.times[i] = t;
+          chunk.refs.set(i, ref);
+          return;
+        }
+        head.compareAndSet(chunk, new Chunk(chunk));
+      }
+    }
+  }
+
+  @Getter
+  private final NodeRegistry registry;
   private transient RecencyQueue<WeakReference<T>> activations;
+  private transient ReferenceQueue<T> collected;
   private transient Subject<T> rxActivations;
+  private transient AtomicLong purgedCount;
+
+  /**
+   * A ring of activation records bucketed by time, so that the nodes activated
+   * within a window can be found without walking the recency queue. Windows
+   * reaching back past the ring fall back to the queue. Buckets are replaced
+   * rather than cleared when the ring wraps, so the index needs no locks.
+   */
+  private transient AtomicReferenceArray<Bucket> buckets;
+  private transient AtomicLong newestEpoch;
+
+  /**
+   * Where the incremental sweep of the activation queue will resume, or null to
+   * start a new sweep.
+   */
+  private transient Iterator<WeakReference<T>> cleanCursor;
+  private transient AtomicLong cleanedCount;
+  private transient AtomicBoolean cleanPending;
+  private transient volatile long nextClean;
+  private transient Scheduler cleanScheduler;
+  private transient Scheduler.ReusableTask cleanTask;
+
+  /**
+   * The total number of activation entries purged after their nodes were
+   * collected.
+   */
+  public long getPurgedCount() {
+    return purgedCount.get();
+  }
+
+  /**
+   * The total number of activation entries removed by sweeps, for references
+   * that were cleared without being enqueued for purging.
+   */
+  public long getCleanedCount() {
+    return cleanedCount.get();
+  }
 
   public Observable<T> rxActivations() {
     return rxActivations;
   }
 
   public Cluster() {
-    init();
+    this(NodeRegistry.DEFAULT);
   }
 
-  // TODO: register cleanup task
+  public Cluster(final NodeRegistry registry) {
+    this.registry = registry;
+    init();
+  }
 
   private void writeObject(final ObjectOutputStream o) throws IOException {
     o.defaultWriteObject();
@@ -52,14 +206,49 @@ public abstract class Cluster<T extends Node> implements Serializable {
 
   private void init() {
     activations = new RecencyQueue<>();
-    rxActivations = PublishSubject.create();
+    collected = new ReferenceQueue<>();
+    rxActivations = PublishSubject.<T>create().toSerialized();
+    purgedCount = new AtomicLong();
+    buckets = new AtomicReferenceArray<>(BUCKETS);
+    newestEpoch = new AtomicLong(Long.MIN_VALUE);
+    cleanedCount = new AtomicLong();
+    cleanPending = new AtomicBoolean();
+  }
+
+  /**
+   * Unlinks at most {@code limit} activation entries whose nodes have been
+   * collected.
+   */
+  private int purge(final int limit) {
+    Reference<? extends T> ref;
+    int purged = 0;
+    while (purged < limit && (ref = collected.poll()) != null) {
+      ((ActivationRef<? extends T>) ref).link.remove();
+      ++purged;
+    }
+    purgedCount.addAndGet(purged);
+    return purged;
   }
 
   protected class Link implements Serializable {
     private transient RecencyQueue<WeakReference<T>>.Link link;
+    @Getter
+    private transient int id;
 
     public Link(final T node) {
-      link = activations.new Link(new WeakReference<>(node));
+      register(node);
+    }
+
+    private void register(final T node) {
+      val ref = new ActivationRef<>(node, collected);
+      link = ref.link = activations.new Link(ref);
+      if (node instanceof Prior prior) {
+        val posteriors = prior.getPosteriors();
+        id = registry.register(node, posteriors::release);
+        posteriors.bind(Cluster.this, registry.handle(id));
+      } else {
+        id = registry.register(node);
+      }
     }
 
     private void writeObject(final ObjectOutputStream o) throws IOException {
@@ -69,7 +258,10 @@ public abstract class Cluster<T extends Node> implements Serializable {
 
     private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
       o.defaultReadObject();
-      link = activations.new Link(new WeakReference<>((T) o.readObject()));
+      final T node = (T) o.readObject();
+      // The node may still be partially deserialized at this point, so register it
+      // once the whole graph has been read, ahead of any edges that refer to it.
+      o.registerValidation(() -> register(node), 2);
     }
 
     /**
@@ -79,18 +271,177 @@ public abstract class Cluster<T extends Node> implements Serializable {
      * timestamps.
      */
     public void promote() {
+      purge(PURGE_BATCH);
       link.promote();
+      final long now = Scheduler.global.now();
+      index((ActivationRef<T>) link.get(), now);
+      if (now >= nextClean && !cleanPending.get()) {
+        scheduleClean(now);
+      }
       rxActivations.onNext(link.get().get());
     }
   }
 
-  public void clean() {
-    // TODO: Guard against connected but rarely activated nodes blocking GC by
-    // thresholding this.
-    val it = activations.reverseIterator();
-    while (it.hasNext() && it.next().get() == null) {
-      it.remove();
+  private void index(final ActivationRef<T> ref, final long t) {
+    // Only the latest activation of a node is recorded, once. A record later than
+    // the clock predates a reset of the clock, as when the global scheduler is
+    // replaced, and is superseded.
+    long indexed;
+    do {
+      indexed = ref.indexed;
+      if (indexed == t || indexed > t && indexed <= Scheduler.global.now()) {
+        return;
+      }
+    } while (!INDEXED.compareAndSet(ref, indexed, t));
+
+    final long epoch = Math.floorDiv(t, BUCKET_WIDTH);
+    final int slot = Math.floorMod(epoch, BUCKETS);
+    Bucket bucket;
+    while ((bucket = buckets.get(slot)) == null || bucket.epoch < epoch) {
+      buckets.compareAndSet(slot, bucket, new Bucket(epoch));
+    }
+    // Otherwise the ring has already moved past this record.
+    if (bucket.epoch == epoch) {
+      bucket.add(ref, t);
+    }
+
+    if (epoch > newestEpoch.get()) {
+      newestEpoch.accumulateAndGet(epoch, Math::max);
+    }
+  }
+
+  /**
+   * Visits the nodes whose last activation falls within {@code [from, to]}, most
+   * recent first. Windows within {@link Node#TRACE_SAMPLE_TTL} of the latest
+   * activation are answered from a time-bucketed index, visiting only the
+   * buckets the window spans, without allocating. Older windows walk the
+   * recency queue.
+   * <p>
+   * This takes no locks, so {@code action} may activate nodes. Like
+   * {@link #activations()}, it is weakly consistent with concurrent activations.
+   */
+  public void forEachActivatedBetween(final long from, final long to, final Consumer<? super T> action) {
+    final long newestEpoch = this.newestEpoch.get();
+    if (from > to || newestEpoch == Long.MIN_VALUE) {
+      return;
+    }
+
+    final long first = Math.floorDiv(from, BUCKET_WIDTH);
+    if (first <= newestEpoch - BUCKETS) {
+      for (final T node : activations()) {
+        final long lastActivation = registry.getLastActivation(node.getId());
+        if (lastActivation < from) {
+          break;
+        }
+        if (lastActivation <= to) {
+          action.accept(node);
+        }
+      }
+      return;
+    }
+
+    for (long epoch = Math.min(Math.floorDiv(to, BUCKET_WIDTH), newestEpoch); epoch >= first; --epoch) {
+      val bucket = buckets.get(Math.floorMod(epoch, BUCKETS));
+      if (bucket == null || bucket.epoch != epoch) {
+        continue;
+      }
+      for (Chunk chunk = bucket.head.get(); chunk != null; chunk = chunk.next) {
+        for (int i = Math.min(chunk.reserved.get(), CHUNK_SIZE) - 1; i >= 0; --i) {
+          final ActivationRef<T> ref = chunk.refs.get(i);
+          if (ref == null) {
+            continue;
+          }
+          final long t = chunk.times[i];
+          if (t >= from && t <= to && ref.indexed == t) {
+            final T node = ref.get();
+            if (node != null) {
+              action.accept(node);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Purges all activation entries whose nodes have been collected and releases
+   * their IDs and edges from the registry.
+   */
+  public synchronized void clean() {
+    cleanCursor = null;
+    // The deadline is compared by difference, so this budget never runs out.
+    clean(Integer.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Cleans incrementally, purging and releasing at most {@code maxEntries}
+   * entries of each kind and examining at most {@code maxEntries} queue entries,
+   * or stopping once {@code budgetNanos} have been spent. Each call resumes the
+   * sweep where the last one stopped.
+   *
+   * @return the number of activation entries removed
+   */
+  public synchronized int clean(final int maxEntries, final long budgetNanos) {
+    final long deadline = System.nanoTime() + budgetNanos;
+    final int purged = purge(maxEntries);
+    registry.reclaim(maxEntries);
+    return purged + sweep(maxEntries, deadline);
+  }
+
+  /**
+   * Advances the sweep for cleared references, which may be cleared before they
+   * are enqueued for purging.
+   */
+  private int sweep(final int maxEntries, final long deadline) {
+    if (cleanCursor == null) {
+      cleanCursor = activations.iterator();
+    }
+
+    int swept = 0;
+    for (int examined = 0; examined < maxEntries; ++examined) {
+      if (!cleanCursor.hasNext()) {
+        cleanCursor = null;
+        break;
+      }
+      if (cleanCursor.next().get() == null) {
+        cleanCursor.remove();
+        ++swept;
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        break;
+      }
     }
+    cleanedCount.addAndGet(swept);
+    return swept;
+  }
+
+  /**
+   * Schedules a cleaning increment, reusing the task unless the global scheduler
+   * has been replaced. Increments are triggered by activations, at most once per
+   * {@link #CLEAN_INTERVAL}, and run at the time of the triggering activation.
+   * The cleaner never schedules itself into the future, so it neither keeps an
+   * idle scheduler busy nor advances its clock.
+   */
+  private void scheduleClean(final long deadline) {
+    // Only the thread that claims the pending flag touches the task.
+    if (!cleanPending.compareAndSet(false, true)) {
+      return;
+    }
+    nextClean = deadline + CLEAN_INTERVAL;
+
+    if (cleanScheduler != Scheduler.global) {
+      if (cleanTask != null) {
+        cleanTask.cancel();
+      }
+      cleanScheduler = Scheduler.global;
+      cleanTask = cleanScheduler.newTask(this::onCleanTask);
+    }
+    cleanTask.schedule(deadline);
+  }
+
+  private void onCleanTask() {
+    cleanPending.set(false);
+    clean(CLEAN_BATCH, CLEAN_BUDGET_NANOS);
   }
 
   public Iterable<T> activations() {
@@ -132,18 +483,12 @@ public abstract class Cluster<T extends Node> implements Serializable {
 
   public static <T extends Node> void forEachByTrace(final Cluster<T> cluster, final IntegrationProfile profile,
       final long t, final BiConsumer<T, Float> action) {
-    final long horizon = t - profile.period();
-
-    for (final T node : cluster.activations()) {
-      if (node.getLastActivation().get() <= horizon) {
-        break;
-      }
-
+    cluster.forEachActivatedBetween(t - profile.period() + 1, Long.MAX_VALUE, node -> {
       final float trace = node.getTrace().evaluate(t, profile);
       if (trace > 0) {
         action.accept(node, trace);
       }
-    }
+    });
   }
 
   public static record PriorClusterProfile(Cluster<? extends Prior> cluster,
@@ -232,14 +577,12 @@ public abstract class Cluster<T extends Node> implements Serializable {
           // For each posterior, find all priors in the designated cluster and reduce
           // their weight by the product of the pertinent traces.
 
-          for (val prior : posterior.getPriors()) {
-            if (prior.node().getCluster() == priorCluster) {
-              final float priorTrace = prior.node().getTrace()
-                  .evaluate(posterior.getLastActivation().get(), prior.edge().profile);
-              if (priorTrace > 0) {
-                prior.edge().distribution.reinforce(weightByTrace(
-                    -prior.edge().distribution.getWeight(), 0, priorTrace * posteriorTrace));
-              }
+          for (val prior : posterior.getPriors().from(priorCluster)) {
+            final float priorTrace = prior.node().getTrace()
+                .evaluate(posterior.getLastActivation().get(), prior.edge().profile);
+            if (priorTrace > 0) {
+              prior.edge().reinforce(weightByTrace(
+                  -prior.edge().getWeight(), 0, priorTrace * posteriorTrace));
             }
           }
         });
@@ -248,20 +591,51 @@ public abstract class Cluster<T extends Node> implements Serializable {
   public static void disassociateAll(final Cluster<? extends Prior> priorCluster) {
     // This is a reinforcement rather than a simple clear to smooth by trace.
     forEachByTrace(priorCluster, IntegrationProfile.TRANSIENT, Scheduler.global.now(),
-        (prior, trace) -> {
-          for (val entry : prior.getPosteriors()) {
-            entry.edge().distribution
-                .reinforce(weightByTrace(-entry.edge().distribution.getWeight(), 0, trace));
-          }
-        });
+        (prior, trace) -> prior.getPosteriors().attenuate(weightByTrace(1, 0, trace)));
+  }
+
+  /**
+   * Freezes the outgoing edges of every node in the given cluster, exempting them
+   * from STDP. Edges created afterwards are plastic.
+   */
+  public static void freeze(final Cluster<? extends Prior> priorCluster) {
+    for (val prior : priorCluster.activations()) {
+      prior.getPosteriors().freeze();
+    }
+  }
+
+  /**
+   * Freezes the outgoing edges of every node in the given cluster and rounds them
+   * to {@code precision}. For {@link FrozenDistribution.Precision#BYTE}, the
+   * scale is the largest frozen coefficient magnitude in the cluster.
+   */
+  public static void freeze(final Cluster<? extends Prior> priorCluster,
+      final FrozenDistribution.Precision precision) {
+    float scale = 0;
+    for (val prior : priorCluster.activations()) {
+      prior.getPosteriors().freeze();
+      for (val entry : prior.getPosteriors()) {
+        if (entry.edge().isFrozen()) {
+          scale = Math.max(scale, Math.abs(entry.edge().getMax()));
+        }
+      }
+    }
+
+    for (val prior : priorCluster.activations()) {
+      prior.getPosteriors().quantize(precision, scale);
+    }
+  }
+
+  public static void thaw(final Cluster<? extends Prior> priorCluster) {
+    for (val prior : priorCluster.activations()) {
+      prior.getPosteriors().thaw();
+    }
   }
 
   public static void scalePosteriors(final Cluster<? extends Prior> priorCluster, final float factor) {
     forEachByTrace(priorCluster, IntegrationProfile.TRANSIENT, Scheduler.global.now(),
         (prior, trace) -> {
-          for (val entry : prior.getPosteriors()) {
-            entry.edge().distribution.scale(weightByTrace(factor, 1, trace));
-          }
+          prior.getPosteriors().scale(weightByTrace(factor, 1, trace));
         });
   }
 }
@@ -71,12 +71,12 @@ public class ConjunctionJunction {
     for (val component : components) {
       final float coefficient = component.weight() / normAdj;
       assert coefficient <= Prior.DEFAULT_COEFFICIENT;
-      val distribution = component.prior().getPosteriors().getEdge(posterior, component.profile()).distribution;
+      val edge = component.prior().getPosteriors().getEdge(posterior, component.profile());
       // This condition prevents association from ever making pre-existing connections
       // more restrictive. This is specifically for association. In the naive
       // conjunction case, there are no pre-existing condtions.
-      if (coefficient >= distribution.getMode()) {
-        distribution.add(coefficient, weight);
+      if (coefficient >= edge.getMode()) {
+        edge.add(coefficient, weight);
       }
     }
 
@@ -4,18 +4,24 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.Striped;
 
 import ai.xng.ThresholdIntegrator.Spike;
 import lombok.RequiredArgsConstructor;
@@ -24,145 +30,361 @@ import lombok.experimental.UtilityClass;
 
 @UtilityClass
 public class Connections {
-  public static class Edge implements Serializable {
-    public final Distribution distribution;
+  /**
+   * Locks guarding structural changes to edge tables. An edge lives in two
+   * tables, so adding or removing one locks the stripes of both its prior's
+   * {@link Posteriors} and its posterior's {@link Priors}. Lookups and iteration
+   * do not lock.
+   */
+  private static final Striped<Lock> stripes = Striped.lock(64);
+
+  /**
+   * Locks the stripes for a pair of tables. Stripes are acquired in a consistent
+   * order so that threads locking overlapping pairs cannot deadlock.
+   */
+  private static Iterable<Lock> lock(final Object posteriors, final Object priors) {
+    return lock(Arrays.asList(posteriors, priors));
+  }
+
+  /**
+   * Locks the stripes for any number of tables, in the same order as
+   * {@link #lock(Object, Object)}.
+   */
+  private static Iterable<Lock> lock(final Iterable<?> tables) {
+    val locks = stripes.bulkGet(tables);
+    for (val lock : locks) {
+      lock.lock();
+    }
+    return locks;
+  }
+
+  /**
+   * Locks the tables holding {@code edge}.
+   */
+  private static Iterable<Lock> lock(final Edge edge) {
+    // An edge restored without its prior may never have been bound to a source.
+    return lock(edge.source == null ? edge : edge.source, edge.posterior.getPriors());
+  }
+
+  private static void unlock(final Iterable<Lock> locks) {
+    for (val lock : locks) {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * An edge between a prior and a posterior. The same edge object is stored in
+   * the prior's {@link Posteriors} and the posterior's {@link Priors}. The edge
+   * holds its posterior strongly but refers to its prior only by registry handle
+   * so that posteriors do not keep their priors alive.
+   * <p>
+   * An edge may be frozen into a {@link FrozenDistribution}, which is exempt from
+   * STDP. Frozen edges stay frozen when scaled, but any other change thaws them
+   * back into a plastic distribution first.
+   */
+  public static class Edge implements Distribution, Serializable {
+    private Distribution distribution = new UnimodalHypothesis();
     private final Posterior posterior;
     public final IntegrationProfile profile;
 
-    private transient List<Spike> activations;
-    private transient List<Suppression> suppressions;
+    private transient Cluster<?> priorCluster;
+    private transient long priorHandle;
 
-    @RequiredArgsConstructor
-    private static class Suppression {
-      final float factor;
-      final Spike spike;
-    }
+    /**
+     * The posterior table of the prior, and how many of its pending operations
+     * this edge has applied. Operations are applied under the table's stripe so
+     * that concurrent readers do not apply them twice.
+     */
+    private transient Posteriors source;
+    private transient volatile int generation;
 
-    private Edge(final Posterior posterior, final IntegrationProfile profile) {
-      init();
-      distribution = new UnimodalHypothesis() {
-        @Override
-        public void set(float value, float weight) {
-          super.set(value, weight);
-          invalidate();
-        }
+    /**
+     * Spikes this edge has contributed to its posterior that may still be in
+     * flight, so that they can be adjusted when the distribution changes. Most
+     * edges are idle at any given time, so this is only allocated while there are
+     * spikes to track.
+     */
+    private transient List<Contribution> spikes;
 
-        @Override
-        public void add(float value, float weight) {
-          super.add(value, weight);
-          invalidate();
-        }
+    /**
+     * A spike scaled by {@code factor} relative to the edge's coefficient. This is
+     * 1 for activations and negative for suppressions.
+     */
+    private static record Contribution(float factor, Spike spike) {
+    }
 
-        @Override
-        public void scale(float factor) {
-          super.scale(factor);
-          invalidate();
-        }
-      };
+    private Edge(final Cluster<?> priorCluster, final long priorHandle, final Posterior posterior,
+        final IntegrationProfile profile, final Posteriors source, final int generation) {
+      this.priorCluster = priorCluster;
+      this.priorHandle = priorHandle;
       this.posterior = posterior;
       this.profile = profile;
+      this.source = source;
+      this.generation = generation;
     }
 
-    private void init() {
-      activations = new ArrayList<>();
-      suppressions = new ArrayList<>();
+    private void bindPrior(final Prior prior) {
+      if (prior == null) {
+        priorCluster = null;
+      } else {
+        priorCluster = prior.getCluster();
+        priorHandle = priorCluster.getRegistry().handle(prior.getId());
+      }
+    }
+
+    /**
+     * Gets the prior of this edge, or null if it has been garbage collected.
+     */
+    public Prior prior() {
+      return priorCluster == null ? null : (Prior) priorCluster.getRegistry().resolve(priorHandle);
+    }
+
+    public Posterior posterior() {
+      return posterior;
     }
 
     private void evict() {
+      if (spikes == null) {
+        return;
+      }
       val now = Scheduler.global.now();
-      activations.removeIf(spike -> spike.end() <= now);
-      suppressions.removeIf(suppression -> suppression.spike.end() <= now);
+      spikes.removeIf(contribution -> contribution.spike().end() <= now);
+      if (spikes.isEmpty()) {
+        spikes = null;
+      }
+    }
+
+    private void track(final float factor, final Spike spike) {
+      evict();
+      if (spikes == null) {
+        spikes = new ArrayList<>(1);
+      }
+      spikes.add(new Contribution(factor, spike));
+    }
+
+    /**
+     * Applies any operations recorded on the prior's table since this edge was
+     * last accessed.
+     */
+    private void catchUp() {
+      val source = this.source;
+      if (source != null && generation != source.generation) {
+        val locks = lock(source, source);
+        try {
+          // Another reader may have caught this edge up while we waited.
+          if (generation != source.generation) {
+            source.catchUp(this);
+          }
+        } finally {
+          unlock(locks);
+        }
+      }
+    }
+
+    private void writeObject(final ObjectOutputStream o) throws IOException {
+      catchUp();
+      o.defaultWriteObject();
+      o.writeObject(prior());
     }
 
     private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
-      init();
       o.defaultReadObject();
+      final Prior prior = (Prior) o.readObject();
+      // The prior may not have been assigned an ID yet if it is still being
+      // deserialized, so bind it once the whole graph has been read. Tables rebuild
+      // at a lower priority so that they see bound edges.
+      o.registerValidation(() -> bindPrior(prior), 1);
     }
 
-    private void invalidate() {
-      if (activations.isEmpty() && suppressions.isEmpty()) {
-        return;
+    public boolean isFrozen() {
+      return distribution instanceof FrozenDistribution;
+    }
+
+    /**
+     * Replaces the distribution with its immutable form. This has no effect if the
+     * distribution has tails, which a frozen distribution cannot represent.
+     *
+     * @return whether the edge is frozen
+     */
+    public boolean freeze() {
+      catchUp();
+      if (distribution instanceof UnimodalHypothesis plastic) {
+        final FrozenDistribution frozen = plastic.freeze();
+        if (frozen != null) {
+          distribution = frozen;
+        }
+      }
+      return isFrozen();
+    }
+
+    /**
+     * Rounds a frozen edge to {@code precision}. This has no effect on plastic
+     * edges.
+     *
+     * @see FrozenDistribution#quantized(FrozenDistribution.Precision, float)
+     */
+    public void quantize(final FrozenDistribution.Precision precision, final float scale) {
+      catchUp();
+      if (distribution instanceof FrozenDistribution frozen) {
+        val quantized = frozen.quantized(precision, scale);
+        if (quantized != frozen) {
+          distribution = quantized;
+          invalidate();
+        }
+      }
+    }
+
+    public void thaw() {
+      catchUp();
+      plastic();
+    }
+
+    private Distribution plastic() {
+      if (distribution instanceof FrozenDistribution frozen) {
+        distribution = frozen.thaw();
+      }
+      return distribution;
+    }
+
+    private void scaleDistribution(final float factor) {
+      if (distribution instanceof FrozenDistribution frozen) {
+        distribution = frozen.scaled(factor);
+      } else {
+        distribution.scale(factor);
+      }
+    }
+
+    /**
+     * Propagates a change in the distribution to spikes still in flight and to
+     * the prior's index of strongest posteriors, if any.
+     */
+    void invalidate() {
+      if (source != null && source.strongest != null) {
+        source.strongest.update(this);
       }
 
       evict();
+      if (spikes == null) {
+        return;
+      }
+
       final float newRate = distribution.getMode() / profile.rampUp();
       // Since these are all adjustments to the same integrator, we could actually
       // defer the invalidation, but we expect the size of this loop to be 1 so it's
       // premature optimization.
-      for (val spike : activations) {
-        spike.adjustRampUp(newRate);
-      }
-      for (val suppression : suppressions) {
-        suppression.spike.adjustRampUp(-suppression.factor * newRate);
+      for (val contribution : spikes) {
+        contribution.spike().adjustRampUp(contribution.factor() * newRate);
       }
     }
 
-    public void activate() {
-      activations.add(posterior.getIntegrator().add(profile, distribution.generate()));
+    @Override
+    public void set(final float value, final float weight) {
+      val source = this.source;
+      if (source == null) {
+        plastic().set(value, weight);
+      } else {
+        // Setting supersedes any pending operations, but a concurrent reader must
+        // not apply them over the new value.
+        val locks = lock(source, source);
+        try {
+          plastic().set(value, weight);
+          generation = source.generation;
+        } finally {
+          unlock(locks);
+        }
+      }
+      invalidate();
     }
 
-    public void suppress(final float factor) {
-      suppressions.add(new Suppression(factor,
-          posterior.getIntegrator().add(profile, -factor * distribution.generate())));
+    @Override
+    public void add(final float value, final float weight) {
+      catchUp();
+      plastic().add(value, weight);
+      invalidate();
     }
-  }
-
-  public static record Entry<T> (T node, Edge edge) {
-  }
 
-  private static record Key<T extends Serializable> (T node, IntegrationProfile profile) implements Serializable {
-  }
+    @Override
+    public void scale(final float factor) {
+      catchUp();
+      scaleDistribution(factor);
+      invalidate();
+    }
 
-  private static class WeakPrior implements Serializable {
-    transient int hashCode;
-    transient WeakReference<Prior> ref;
+    /**
+     * Reinforces the distribution without adjusting spikes in flight, which would
+     * touch integrators and the scheduler. Distinct edges may be reinforced this
+     * way concurrently, but {@link #invalidate()} must follow on the thread that
+     * drives the graph.
+     */
+    void reinforceDetached(final float weight) {
+      catchUp();
+      plastic().reinforce(weight);
+    }
 
-    WeakPrior(final Prior prior) {
-      this.hashCode = prior.hashCode();
-      ref = new WeakReference<>(prior);
+    @Override
+    public float generate() {
+      catchUp();
+      return distribution.generate();
     }
 
-    private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
-      o.defaultReadObject();
-      val prior = (Prior) o.readObject();
-      hashCode = prior == null ? 0 : prior.hashCode();
-      ref = new WeakReference<>(prior);
+    @Override
+    public float getMax() {
+      catchUp();
+      return distribution.getMax();
     }
 
-    private void writeObject(final ObjectOutputStream o) throws IOException {
-      o.defaultWriteObject();
-      o.writeObject(ref.get());
+    @Override
+    public float getMin() {
+      catchUp();
+      return distribution.getMin();
     }
 
     @Override
-    public boolean equals(final Object obj) {
-      if (obj == this) {
-        return true;
-      }
-      val prior = ref.get();
-      if (prior == null) {
-        return false;
-      }
-      return obj instanceof WeakPrior wp && prior == wp.ref.get();
+    public float getMode() {
+      catchUp();
+      return distribution.getMode();
     }
 
     @Override
-    public int hashCode() {
-      return hashCode;
+    public float getWeight() {
+      catchUp();
+      return distribution.getWeight();
+    }
+
+    public void activate() {
+      catchUp();
+      rampUp();
+      track(1, posterior.getIntegrator().add(profile, distribution.generate()));
+    }
+
+    public void suppress(final float factor) {
+      catchUp();
+      rampUp();
+      track(-factor, posterior.getIntegrator().add(profile, -factor * distribution.generate()));
+    }
+
+    private void rampUp() {
+      if (source != null) {
+        source.rampingUntil = Math.max(source.rampingUntil, Scheduler.global.now() + profile.peak());
+      }
     }
 
     @Override
     public String toString() {
-      return Objects.toString(ref.get());
+      catchUp();
+      return distribution.toString();
     }
   }
 
+  public static record Entry<T> (T node, Edge edge) {
+  }
+
   private static <T> String toString(final Iterable<Entry<T>> connections) {
     val sb = new StringBuilder();
     for (val profileEntry : Multimaps.index(connections, e -> e.edge().profile).asMap().entrySet()) {
       sb.append(profileEntry.getKey()).append('\n');
       for (val nodeEntry : profileEntry.getValue()) {
-        val coefficient = nodeEntry.edge().distribution.getMode();
+        val coefficient = nodeEntry.edge().getMode();
         sb.append(nodeEntry.node()).append(": ").append(coefficient);
         if (coefficient >= 1) {
           sb.append("*");
@@ -176,42 +398,754 @@ public class Connections {
     return sb.toString();
   }
 
-  @RequiredArgsConstructor
-  public static class Posteriors implements Serializable, Iterable<Entry<Posterior>> {
-    private final Prior owner;
-    private final Map<Key<Posterior>, Edge> backing = new HashMap<>();
+  /**
+   * An open-addressed hash set of edges with linear probing. Tables are keyed by
+   * the dense ID of the node at the far end of each edge and by profile ID, so
+   * lookups never allocate and iteration is a scan over a single array. Removed
+   * slots are marked with a tombstone until the next rehash.
+   * <p>
+   * Since node IDs are reassigned on deserialization, tables serialize their
+   * edges as a list and rebuild once the object graph has been read.
+   * <p>
+   * Structural changes must hold the table's stripe lock (see
+   * {@link Connections#lock(Object, Object)}). Readers do not lock. A resized
+   * array is only published once it is filled, and readers probe the array they
+   * first read, so a concurrent reader sees a consistent, if possibly stale, set
+   * of edges. Slots are written with release and read with acquire semantics so
+   * that edges are safely published to such readers.
+   */
+  abstract static class EdgeTable implements Serializable {
+    private static final int MIN_CAPACITY = 4;
+    private static final Edge TOMBSTONE = new Edge(null, 0, null, null, null, 0);
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Edge[].class);
 
-    @Override
-    public Iterator<Entry<Posterior>> iterator() {
-      val backing = this.backing.entrySet().iterator();
-      return new Iterator<Entry<Posterior>>() {
-        Map.Entry<Key<Posterior>, Edge> current;
+    private transient volatile Edge[] table;
+    private transient int size, used;
 
-        @Override
-        public boolean hasNext() {
-          return backing.hasNext();
+    protected abstract int nodeId(Edge edge);
+
+    protected static int hash(final int id, final IntegrationProfile profile) {
+      final int h = (id << 5 ^ profile.id()) * 0x9E3779B9;
+      return h ^ h >>> 16;
+    }
+
+    protected Edge[] table() {
+      return table;
+    }
+
+    protected static int mask(final Edge[] table) {
+      return table.length - 1;
+    }
+
+    /**
+     * Reads a slot with acquire semantics. Slots are written with release
+     * semantics, so a lock-free reader that sees an edge also sees it fully
+     * initialized.
+     */
+    protected static Edge slot(final Edge[] table, final int i) {
+      return (Edge) SLOTS.getAcquire(table, i);
+    }
+
+    private static void setSlot(final Edge[] table, final int i, final Edge edge) {
+      SLOTS.setRelease(table, i, edge);
+    }
+
+    protected int size() {
+      return size;
+    }
+
+    protected void insert(final Edge edge) {
+      if (table == null) {
+        table = new Edge[MIN_CAPACITY];
+      } else if (4 * (used + 1) > 3 * table.length) {
+        rehash();
+      }
+
+      final Edge[] table = this.table;
+      int i = hash(nodeId(edge), edge.profile) & mask(table);
+      while (table[i] != null && table[i] != TOMBSTONE) {
+        i = i + 1 & mask(table);
+      }
+      if (table[i] == null) {
+        ++used;
+      }
+      setSlot(table, i, edge);
+      ++size;
+    }
+
+    private void rehash() {
+      int capacity = MIN_CAPACITY;
+      while (4 * (size + 1) > 3 * capacity / 2) {
+        capacity *= 2;
+      }
+      resize(capacity);
+    }
+
+    private void resize(final int capacity) {
+      final Edge[] old = table, resized = new Edge[capacity];
+      int n = 0;
+      if (old != null) {
+        for (val edge : old) {
+          if (edge != null && edge != TOMBSTONE) {
+            int i = hash(nodeId(edge), edge.profile) & mask(resized);
+            while (resized[i] != null) {
+              i = i + 1 & mask(resized);
+            }
+            resized[i] = edge;
+            ++n;
+          }
+        }
+      }
+      size = used = n;
+      table = resized;
+    }
+
+    /**
+     * Grows the table so that {@code additional} edges can be inserted without
+     * rehashing.
+     */
+    protected void reserve(final int additional) {
+      if (table != null && 4 * (used + additional) <= 3 * table.length) {
+        return;
+      }
+      int capacity = MIN_CAPACITY;
+      while (4 * (size + additional) > 3 * capacity) {
+        capacity *= 2;
+      }
+      resize(capacity);
+    }
+
+    protected void clear() {
+      table = null;
+      size = used = 0;
+    }
+
+    /**
+     * Drops all tombstones, shrinking the table to fit its live edges.
+     */
+    protected void compact() {
+      if (size == 0) {
+        clear();
+      } else if (used > size) {
+        rehash();
+      }
+    }
+
+    /**
+     * Compacts the table if tombstones outnumber live edges.
+     */
+    protected void compactIfSparse() {
+      if (used - size > size) {
+        compact();
+      }
+    }
+
+    protected void removeAt(final int i) {
+      setSlot(table, i, TOMBSTONE);
+      if (--size == 0) {
+        onEmpty();
+      }
+    }
+
+    /**
+     * Called when the last edge has been removed from the table.
+     */
+    protected void onEmpty() {
+    }
+
+    /**
+     * Removes the given edge by identity.
+     */
+    protected void remove(final Edge edge) {
+      final Edge[] table = this.table;
+      if (table == null) {
+        return;
+      }
+      int i = hash(nodeId(edge), edge.profile) & mask(table);
+      Edge slot;
+      while ((slot = slot(table, i)) != null) {
+        if (slot == edge) {
+          removeAt(i);
+          return;
+        }
+        i = i + 1 & mask(table);
+      }
+    }
+
+    /**
+     * Iterates over the live slots of the table, yielding an {@link Entry} for each
+     * edge accepted by {@link #entry(Edge)}. Edges that yield no entry, such as
+     * those whose prior has been collected, are skipped; they are released when
+     * the registry reclaims the prior.
+     */
+    protected abstract class TableIterator<T> implements Iterator<Entry<T>> {
+      private final Edge[] table = EdgeTable.this.table;
+      private int index = -1, currentIndex;
+      private Entry<T> current, next;
+
+      {
+        advance();
+      }
+
+      protected abstract Entry<T> entry(Edge edge);
+
+      protected abstract void unlink(Edge edge);
+
+      private void advance() {
+        if (table != null) {
+          while (++index < table.length) {
+            val edge = slot(table, index);
+            if (edge != null && edge != TOMBSTONE) {
+              next = entry(edge);
+              if (next != null) {
+                return;
+              }
+            }
+          }
+        }
+        next = null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public Entry<T> next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        current = next;
+        currentIndex = index;
+        advance();
+        return current;
+      }
+
+      @Override
+      public void remove() {
+        if (current == null) {
+          throw new IllegalStateException();
+        }
+        val edge = current.edge();
+        val locks = lock(edge);
+        try {
+          unlink(edge);
+          if (table == EdgeTable.this.table && slot(table, currentIndex) == edge) {
+            removeAt(currentIndex);
+          } else {
+            EdgeTable.this.remove(edge);
+          }
+        } finally {
+          unlock(locks);
+        }
+        current = null;
+      }
+    }
+
+    private void writeObject(final ObjectOutputStream o) throws IOException {
+      o.defaultWriteObject();
+      val edges = new ArrayList<Edge>(size);
+      if (table != null) {
+        for (val edge : table) {
+          if (edge != null && edge != TOMBSTONE) {
+            edges.add(edge);
+          }
+        }
+      }
+      o.writeObject(edges);
+    }
+
+    private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
+      o.defaultReadObject();
+      @SuppressWarnings("unchecked")
+      final List<Edge> edges = (List<Edge>) o.readObject();
+      o.registerValidation(() -> {
+        for (val edge : edges) {
+          if (accept(edge)) {
+            insert(edge);
+          }
+        }
+        if (size == 0) {
+          onEmpty();
+        }
+      }, 0);
+    }
+
+    /**
+     * Whether a deserialized edge should be retained.
+     */
+    protected boolean accept(final Edge edge) {
+      return true;
+    }
+  }
+
+  /**
+   * The outgoing edges of a prior. The table does not reference its owner; it is
+   * bound to the owner's registry handle when the owner is registered, and
+   * releases its edges from their posteriors once the owner is reclaimed.
+   */
+  public static class Posteriors extends EdgeTable implements Iterable<Entry<Posterior>> {
+    private static final int MIN_PENDING = 8;
+
+    private transient Cluster<?> ownerCluster;
+    private transient long ownerHandle;
+
+    /**
+     * Operations that not every edge has applied yet, each a scale followed by an
+     * attenuation. Edges apply them in order when they are next accessed, so
+     * scaling or clearing a table costs O(1) rather than O(edges). The log is
+     * folded into every edge once it outgrows the table. The log is only read or
+     * written under this table's stripe.
+     */
+    private transient float[] pendingScales, pendingAttenuations;
+    private transient volatile int generation;
+
+    /**
+     * When the last spike ramp-up started by an edge in this table ends. Until
+     * then, operations have to adjust spikes in flight and so are applied eagerly.
+     */
+    private transient long rampingUntil;
+
+    private StrongestIndex strongest;
+
+    /**
+     * The {@code k} edges of a table with the highest modes, in no particular
+     * order. Every indexed edge has a mode of at least {@link #floor} and every
+     * other edge at most that, so most changes can be absorbed without looking at
+     * the rest of the table. Changes that may break that invariant mark the index
+     * stale, and it is rebuilt from a full scan on the next query.
+     */
+    private class StrongestIndex implements Serializable {
+      final int k;
+      transient Edge[] members;
+      transient int size;
+      transient float floor;
+      transient boolean current;
+
+      StrongestIndex(final int k) {
+        this.k = k;
+      }
+
+      int indexOf(final Edge edge) {
+        for (int i = 0; i < size; ++i) {
+          if (members[i] == edge) {
+            return i;
+          }
+        }
+        return -1;
+      }
+
+      int weakest() {
+        int weakest = 0;
+        for (int i = 1; i < size; ++i) {
+          if (members[i].getMode() < members[weakest].getMode()) {
+            weakest = i;
+          }
+        }
+        return weakest;
+      }
+
+      void update(final Edge edge) {
+        if (!current) {
+          return;
+        }
+
+        final float mode = edge.getMode();
+        if (indexOf(edge) >= 0) {
+          if (mode < floor) {
+            if (size() > size) {
+              current = false;
+            } else {
+              floor = mode;
+            }
+          }
+        } else if (size < k) {
+          members[size++] = edge;
+          floor = Math.min(floor, mode);
+        } else if (mode > floor) {
+          final int weakest = weakest();
+          if (mode > members[weakest].getMode()) {
+            members[weakest] = edge;
+            floor = members[weakest()].getMode();
+          } else {
+            floor = mode;
+          }
+        }
+      }
+
+      void remove(final Edge edge) {
+        if (current && indexOf(edge) >= 0) {
+          current = false;
+        }
+      }
+
+      /**
+       * Accounts for every edge being scaled by {@code factor}, which preserves the
+       * order of positive factors.
+       */
+      void scale(final float factor) {
+        if (factor > 0) {
+          floor *= factor;
+        } else {
+          current = false;
+        }
+      }
+
+      void rebuild() {
+        members = new Edge[k];
+        size = 0;
+        floor = Float.POSITIVE_INFINITY;
+        current = true;
+        final Edge[] table = table();
+        if (table != null) {
+          for (val edge : table) {
+            if (edge != null && edge != EdgeTable.TOMBSTONE) {
+              update(edge);
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * Maintains an index of the {@code k} posteriors this prior drives most
+     * strongly, so that {@link #strongest(int)} can answer in O(k). A {@code k} of
+     * 0 drops the index.
+     */
+    public void indexStrongest(final int k) {
+      if (k < 0) {
+        throw new IllegalArgumentException(String.format("Index size (%s) must be non-negative.", k));
+      }
+      strongest = k == 0 ? null : new StrongestIndex(k);
+    }
+
+    /**
+     * Gets up to {@code k} posteriors with the highest edge modes, strongest
+     * first. This scans the table unless an index of at least {@code k} is kept.
+     */
+    public List<Entry<Posterior>> strongest(final int k) {
+      final List<Entry<Posterior>> entries = new ArrayList<>();
+      if (strongest != null && k <= strongest.k) {
+        if (!strongest.current) {
+          strongest.rebuild();
+        }
+        for (int i = 0; i < strongest.size; ++i) {
+          val edge = strongest.members[i];
+          entries.add(new Entry<>(edge.posterior, edge));
+        }
+      } else {
+        forEach(entries::add);
+      }
+
+      entries.sort(Comparator.comparingDouble((Entry<Posterior> entry) -> entry.edge().getMode()).reversed());
+      return entries.size() > k ? entries.subList(0, k) : entries;
+    }
+
+    void bind(final Cluster<?> cluster, final long handle) {
+      ownerCluster = cluster;
+      ownerHandle = handle;
+    }
+
+    /**
+     * Removes all edges from their posteriors' tables.
+     *
+     * @return the number of edges removed
+     */
+    int release() {
+      while (true) {
+        final Set<Object> tables = tables();
+        // Holding this table's stripe keeps edges from being added while the
+        // posterior tables are released, but an edge may have been added before
+        // it was taken, in which case its posterior table must be locked too.
+        val locks = lock(tables);
+        try {
+          if (!tables.containsAll(tables())) {
+            continue;
+          }
+
+          int released = 0;
+          final Edge[] table = table();
+          if (table != null) {
+            for (val edge : table) {
+              if (edge != null && edge != EdgeTable.TOMBSTONE) {
+                edge.posterior.getPriors().remove(edge);
+                ++released;
+              }
+            }
+          }
+          clear();
+          return released;
+        } finally {
+          unlock(locks);
+        }
+      }
+    }
+
+    /**
+     * Gets this table and the posterior tables of its edges.
+     */
+    private Set<Object> tables() {
+      final Set<Object> tables = new HashSet<>();
+      tables.add(this);
+      final Edge[] table = table();
+      if (table != null) {
+        for (val edge : table) {
+          if (edge != null && edge != EdgeTable.TOMBSTONE) {
+            tables.add(edge.posterior.getPriors());
+          }
+        }
+      }
+      return tables;
+    }
+
+    /**
+     * Removes edges whose mode and weight have both fallen below
+     * {@code epsilon}, and compacts this table and the posterior tables it
+     * touches. Requiring the weight to be negligible as well keeps edges that have
+     * merely been scaled down, such as stack frames, which can be scaled back up.
+     *
+     * @return the number of edges removed
+     */
+    int prune(final float epsilon) {
+      final Edge[] table = table();
+      if (table == null) {
+        return 0;
+      }
+
+      int pruned = 0;
+      for (int i = 0; i < table.length; ++i) {
+        val edge = table[i];
+        if (edge != null && edge != EdgeTable.TOMBSTONE && Math.abs(edge.getMode()) < epsilon
+            && edge.getWeight() < epsilon) {
+          val locks = lock(this, edge.posterior.getPriors());
+          try {
+            if (table == table() && table[i] == edge) {
+              removeAt(i);
+              edge.posterior.getPriors().remove(edge);
+              ++pruned;
+            }
+          } finally {
+            unlock(locks);
+          }
+        }
+      }
+      if (pruned > 0) {
+        val locks = lock(this, this);
+        try {
+          compact();
+        } finally {
+          unlock(locks);
+        }
+      }
+      return pruned;
+    }
+
+    /**
+     * Scales every edge in the table by {@code factor}.
+     */
+    public void scale(final float factor) {
+      if (strongest != null) {
+        strongest.scale(factor);
+      }
+
+      if (Scheduler.global.now() < rampingUntil) {
+        for (val entry : this) {
+          entry.edge().scale(factor);
+        }
+      } else {
+        append(factor, 0);
+      }
+    }
+
+    /**
+     * Reinforces every edge in the table toward zero, removing {@code degree} of
+     * its weight. A degree of 1 clears the table.
+     */
+    public void attenuate(final float degree) {
+      // Attenuation only moves modes below critical support, unevenly.
+      if (strongest != null) {
+        strongest.current = false;
+      }
+
+      if (Scheduler.global.now() < rampingUntil) {
+        for (val entry : this) {
+          entry.edge().reinforce(-entry.edge().getWeight() * degree);
+        }
+      } else {
+        append(1, degree);
+      }
+    }
+
+    private void append(final float scale, final float attenuation) {
+      val locks = lock(this, this);
+      try {
+        if (generation >= Math.max(MIN_PENDING, size())) {
+          applyPending();
+        }
+        if (pendingScales == null) {
+          pendingScales = new float[MIN_PENDING];
+          pendingAttenuations = new float[MIN_PENDING];
+        } else if (generation == pendingScales.length) {
+          pendingScales = Arrays.copyOf(pendingScales, 2 * generation);
+          pendingAttenuations = Arrays.copyOf(pendingAttenuations, 2 * generation);
+        }
+        pendingScales[generation] = scale;
+        pendingAttenuations[generation] = attenuation;
+        // Publish the operation only once it is in the log.
+        ++generation;
+      } finally {
+        unlock(locks);
+      }
+    }
+
+    /**
+     * Applies the operations {@code edge} has not yet applied. The caller holds
+     * this table's stripe.
+     */
+    private void catchUp(final Edge edge) {
+      float factor = 1;
+      for (int i = edge.generation; i < generation; ++i) {
+        factor *= pendingScales[i];
+        if (pendingAttenuations[i] != 0) {
+          val distribution = edge.plastic();
+          distribution.scale(factor);
+          factor = 1;
+          distribution.reinforce(-distribution.getWeight() * pendingAttenuations[i]);
+        }
+      }
+      if (factor != 1) {
+        edge.scaleDistribution(factor);
+      }
+      edge.generation = generation;
+    }
+
+    private void applyPending() {
+      final Edge[] table = table();
+      if (table != null) {
+        for (val edge : table) {
+          if (edge != null && edge != EdgeTable.TOMBSTONE) {
+            catchUp(edge);
+            edge.generation = 0;
+          }
         }
+      }
+      generation = 0;
+    }
+
+    /**
+     * Freezes every edge in the table that can be represented in frozen form.
+     */
+    public void freeze() {
+      for (val entry : this) {
+        entry.edge().freeze();
+      }
+    }
+
+    /**
+     * Rounds every frozen edge in the table to {@code precision}.
+     */
+    public void quantize(final FrozenDistribution.Precision precision, final float scale) {
+      for (val entry : this) {
+        entry.edge().quantize(precision, scale);
+      }
+    }
+
+    public void thaw() {
+      for (val entry : this) {
+        entry.edge().thaw();
+      }
+    }
+
+    @Override
+    protected void insert(final Edge edge) {
+      // Bind restored edges before they are visible to readers.
+      edge.source = this;
+      super.insert(edge);
+    }
+
+    @Override
+    protected void removeAt(final int i) {
+      final Edge edge = table()[i];
+      super.removeAt(i);
+      if (strongest != null) {
+        strongest.remove(edge);
+      }
+    }
+
+    @Override
+    protected void clear() {
+      super.clear();
+      if (strongest != null) {
+        strongest.current = false;
+      }
+    }
+
+    @Override
+    protected int nodeId(final Edge edge) {
+      return edge.posterior.getId();
+    }
 
+    @Override
+    public Iterator<Entry<Posterior>> iterator() {
+      return new TableIterator<Posterior>() {
         @Override
-        public Entry<Posterior> next() {
-          current = backing.next();
-          return new Entry<>(current.getKey().node(), current.getValue());
+        protected Entry<Posterior> entry(final Edge edge) {
+          return new Entry<>(edge.posterior, edge);
         }
 
         @Override
-        public void remove() {
-          current.getKey().node().getPriors().backing.remove(new Key<>(owner, current.getKey().profile()));
-          backing.remove();
+        protected void unlink(final Edge edge) {
+          edge.posterior.getPriors().remove(edge);
         }
       };
     }
 
+    private Edge find(final Posterior posterior, final IntegrationProfile profile) {
+      final Edge[] table = table();
+      if (table == null) {
+        return null;
+      }
+
+      int i = hash(posterior.getId(), profile) & mask(table);
+      Edge edge;
+      while ((edge = slot(table, i)) != null) {
+        if (edge.posterior == posterior && edge.profile == profile) {
+          return edge;
+        }
+        i = i + 1 & mask(table);
+      }
+      return null;
+    }
+
+    /**
+     * Gets the edge to {@code posterior}, creating it if it does not exist. This
+     * may be called from multiple threads; concurrent calls for the same
+     * posterior and profile return the same edge.
+     */
     public Edge getEdge(final Posterior posterior, final IntegrationProfile profile) {
-      return backing.computeIfAbsent(new Key<>(posterior, profile), (__) -> {
-        val edge = new Edge(posterior, profile);
-        posterior.getPriors().backing.put(new Key<>(new WeakPrior(owner), profile), edge);
+      Edge edge = find(posterior, profile);
+      if (edge != null) {
+        return edge;
+      }
+
+      val locks = lock(this, posterior.getPriors());
+      try {
+        edge = find(posterior, profile);
+        if (edge != null) {
+          return edge;
+        }
+
+        edge = new Edge(ownerCluster, ownerHandle, posterior, profile, this, generation);
+        insert(edge);
+        posterior.getPriors().insert(edge);
+        if (strongest != null) {
+          strongest.update(edge);
+        }
         return edge;
-      });
+      } finally {
+        unlock(locks);
+      }
     }
 
     @Override
@@ -220,53 +1154,205 @@ public class Connections {
     }
   }
 
+  /**
+   * The incoming edges of a posterior, partitioned by prior cluster and profile
+   * so that queries about one cluster only visit that cluster's edges. A
+   * posterior typically draws from only a handful of clusters, so partitions are
+   * kept in a small array and found by linear search.
+   */
   @RequiredArgsConstructor
   public static class Priors implements Serializable, Iterable<Entry<Prior>> {
+    private static final Partition[] NO_PARTITIONS = {};
+
     private final Posterior owner;
-    private final Map<Key<WeakPrior>, Edge> backing = new HashMap<>();
+    private volatile Partition[] partitions = NO_PARTITIONS;
 
-    @Override
-    public Iterator<Entry<Prior>> iterator() {
-      val backing = this.backing.entrySet()
-          .iterator();
+    @RequiredArgsConstructor
+    private class Partition extends EdgeTable {
+      final Cluster<?> cluster;
+      final IntegrationProfile profile;
+
+      @Override
+      protected void onEmpty() {
+        drop(this);
+      }
+
+      @Override
+      protected int nodeId(final Edge edge) {
+        return NodeRegistry.id(edge.priorHandle);
+      }
+
+      @Override
+      protected boolean accept(final Edge edge) {
+        return edge.priorCluster != null;
+      }
 
-      return new Iterator<Entry<Prior>>() {
-        Entry<Prior> current, next;
-        {
-          advance();
+      /**
+       * Finds the edge from {@code prior}, which must be in this partition's
+       * cluster.
+       */
+      Edge find(final Prior prior) {
+        final Edge[] table = table();
+        if (table == null) {
+          return null;
         }
 
-        @Override
-        public boolean hasNext() {
-          return next != null;
+        final int id = prior.getId();
+        final long handle = cluster.getRegistry().handle(id);
+        int i = hash(id, profile) & mask(table);
+        Edge edge;
+        while ((edge = slot(table, i)) != null) {
+          if (edge != EdgeTable.TOMBSTONE && edge.priorHandle == handle) {
+            return edge;
+          }
+          i = i + 1 & mask(table);
         }
+        return null;
+      }
 
-        @Override
-        public Entry<Prior> next() {
-          current = next;
-          advance();
-          return current;
-        }
-
-        private void advance() {
-          while (backing.hasNext()) {
-            val candidate = backing.next();
-            next = new Entry<>(candidate.getKey().node().ref.get(), candidate.getValue());
-            if (next.node == null) {
-              backing.remove();
-            } else {
-              return;
+      Iterator<Entry<Prior>> iterator() {
+        return new TableIterator<Prior>() {
+          @Override
+          protected Entry<Prior> entry(final Edge edge) {
+            val prior = edge.prior();
+            return prior == null ? null : new Entry<>(prior, edge);
+          }
+
+          @Override
+          protected void unlink(final Edge edge) {
+            val prior = edge.prior();
+            if (prior != null) {
+              prior.getPosteriors().remove(edge);
             }
           }
-          next = null;
+        };
+      }
+    }
+
+    private Partition partition(final Cluster<?> cluster, final IntegrationProfile profile) {
+      for (val partition : partitions) {
+        if (partition.cluster == cluster && partition.profile == profile) {
+          return partition;
         }
+      }
+      return null;
+    }
 
-        @Override
-        public void remove() {
-          current.node().getPosteriors().backing.remove(new Key<>(owner, current.edge().profile));
-          backing.remove();
+    private Partition addPartition(final Cluster<?> cluster, final IntegrationProfile profile) {
+      Partition partition = partition(cluster, profile);
+      if (partition == null) {
+        partition = new Partition(cluster, profile);
+        // Copy rather than grow in place so that iterators over the old array are
+        // unaffected.
+        partitions = Arrays.copyOf(partitions, partitions.length + 1);
+        partitions[partitions.length - 1] = partition;
+      }
+      return partition;
+    }
+
+    private void insert(final Edge edge) {
+      addPartition(edge.priorCluster, edge.profile).insert(edge);
+    }
+
+    /**
+     * Grows the partition for the given prior cluster and profile so that
+     * {@code additional} edges can be inserted without rehashing. At least one of
+     * them must be new, or the partition may be left empty.
+     */
+    void reserve(final Cluster<?> cluster, final IntegrationProfile profile, final int additional) {
+      addPartition(cluster, profile).reserve(additional);
+    }
+
+    private void drop(final Partition partition) {
+      for (int i = 0; i < partitions.length; ++i) {
+        if (partitions[i] == partition) {
+          val remaining = Arrays.copyOf(partitions, partitions.length - 1);
+          System.arraycopy(partitions, i + 1, remaining, i, remaining.length - i);
+          partitions = remaining;
+          return;
         }
-      };
+      }
+    }
+
+    /**
+     * Removes the given edge by identity, compacting its partition if it has
+     * become sparse.
+     */
+    private void remove(final Edge edge) {
+      val partition = partition(edge.priorCluster, edge.profile);
+      if (partition != null) {
+        partition.remove(edge);
+        partition.compactIfSparse();
+      }
+    }
+
+    private Iterator<Entry<Prior>> iterator(final Predicate<Partition> filter) {
+      return Iterators.concat(Iterators.transform(Iterators.filter(Iterators.forArray(partitions), filter::test),
+          Partition::iterator));
+    }
+
+    @Override
+    public Iterator<Entry<Prior>> iterator() {
+      return iterator(partition -> true);
+    }
+
+    /**
+     * Visits the priors whose traces may be nonzero at {@code t}, that is, those
+     * activated within the period of their edge's profile. For each partition,
+     * this walks the prior cluster's recency queue back to the profile horizon,
+     * falling back to a scan of the partition if the walk would be longer.
+     */
+    public void forEachRecent(final long t, final Consumer<Entry<Prior>> action) {
+      for (val partition : partitions) {
+        final long horizon = t - partition.profile.period();
+        List<Entry<Prior>> recent = null;
+        int budget = partition.size();
+        boolean scan = false;
+
+        val registry = partition.cluster.getRegistry();
+        for (val node : partition.cluster.activations()) {
+          if (registry.getLastActivation(node.getId()) <= horizon) {
+            break;
+          }
+          if (--budget < 0) {
+            scan = true;
+            break;
+          }
+          final Edge edge = partition.find((Prior) node);
+          if (edge != null) {
+            if (recent == null) {
+              recent = new ArrayList<>();
+            }
+            recent.add(new Entry<>((Prior) node, edge));
+          }
+        }
+
+        if (scan) {
+          val it = partition.iterator();
+          while (it.hasNext()) {
+            val entry = it.next();
+            if (entry.node().hasTrace(t, partition.profile)) {
+              action.accept(entry);
+            }
+          }
+        } else if (recent != null) {
+          recent.forEach(action);
+        }
+      }
+    }
+
+    /**
+     * Iterates over the priors from a single cluster.
+     */
+    public Iterable<Entry<Prior>> from(final Cluster<?> cluster) {
+      return () -> iterator(partition -> partition.cluster == cluster);
+    }
+
+    /**
+     * Iterates over the priors from a single cluster with a single profile.
+     */
+    public Iterable<Entry<Prior>> from(final Cluster<?> cluster, final IntegrationProfile profile) {
+      return () -> iterator(partition -> partition.cluster == cluster && partition.profile == profile);
     }
 
     @Override
@@ -280,7 +1366,7 @@ public class Connections {
   private static void debugPriors(final StringBuilder sb, final Posterior node, final String indent,
       final Set<Cluster<? extends Prior>> exclude) {
     sb.append(indent).append('[');
-    val it = Iterators.filter(node.getPriors().iterator(), prior -> !exclude.contains(prior.node().getCluster()));
+    val it = node.getPriors().iterator(partition -> !exclude.contains(partition.cluster));
     while (it.hasNext()) {
       debugPrior(sb, it.next());
       if (it.hasNext()) {
@@ -333,7 +1419,7 @@ public class Connections {
         .append(": ")
         .append(prior.node().getTrace().evaluate(Scheduler.global.now(), prior.edge().profile))
         .append("/")
-        .append(prior.edge().distribution.getMode())
+        .append(prior.edge().getMode())
         .append('@')
         .append(prior.edge().profile);
   }
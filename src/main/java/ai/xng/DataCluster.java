@@ -9,6 +9,11 @@ public class DataCluster extends PosteriorCluster<DataCluster.Node> {
     private Node() {
     }
 
+    @Override
+    public int getId() {
+      return link.getId();
+    }
+
     @Override
     public DataCluster getCluster() {
       return DataCluster.this;
@@ -71,4 +76,9 @@ public class DataCluster extends PosteriorCluster<DataCluster.Node> {
   public DataCluster(final InputCluster updateCluster) {
     this.updateCluster = updateCluster;
   }
+
+  public DataCluster(final NodeRegistry registry, final InputCluster updateCluster) {
+    super(registry);
+    this.updateCluster = updateCluster;
+  }
 }
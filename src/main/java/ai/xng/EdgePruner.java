@@ -0,0 +1,78 @@
+package ai.xng;
+
+import java.io.Serializable;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Removes edges that have decayed to negligible coefficients. LTD removes edges
+ * whose weight reaches exactly zero, but disassociation and scaling can leave
+ * edges that never contribute to their posteriors while still costing every
+ * activation of their priors.
+ * <p>
+ * Pruning walks the nodes of a registry in ID order and is incremental: each
+ * call resumes where the last one left off and stops when its time budget is
+ * spent or it has visited every node once. Like the rest of the graph, this is
+ * not thread-safe and should run on the thread that drives the graph.
+ */
+@RequiredArgsConstructor
+public class EdgePruner implements Serializable {
+  public static final float DEFAULT_EPSILON = .001f;
+
+  private final NodeRegistry registry;
+
+  @Getter
+  private float epsilon = DEFAULT_EPSILON;
+
+  private int cursor;
+  private final Multiset<Cluster<?>> reclaimed = HashMultiset.create();
+
+  public void setEpsilon(final float epsilon) {
+    if (epsilon < 0) {
+      throw new IllegalArgumentException(String.format("Epsilon (%s) must be non-negative.", epsilon));
+    }
+    this.epsilon = epsilon;
+  }
+
+  /**
+   * Prunes edges for up to {@code budgetNanos} nanoseconds.
+   *
+   * @return the number of edges removed
+   */
+  public int prune(final long budgetNanos) {
+    final long deadline = System.nanoTime() + budgetNanos;
+    int pruned = 0;
+
+    for (int visited = 0; visited < registry.capacity(); ++visited) {
+      if (cursor >= registry.capacity()) {
+        cursor = 0;
+      }
+
+      if (registry.get(cursor++) instanceof Prior prior) {
+        final int n = prior.getPosteriors().prune(epsilon);
+        if (n > 0) {
+          reclaimed.add(prior.getCluster(), n);
+          pruned += n;
+        }
+      }
+
+      if (System.nanoTime() - deadline >= 0) {
+        break;
+      }
+    }
+
+    return pruned;
+  }
+
+  /**
+   * The number of edges removed so far, counted by the cluster of their prior.
+   */
+  public Multiset<Cluster<?>> getReclaimed() {
+    return Multisets.unmodifiableMultiset(reclaimed);
+  }
+}
@@ -1,6 +1,6 @@
 package ai.xng;
 
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
@@ -9,11 +9,8 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-import com.google.common.collect.ComparisonChain;
-
 import io.reactivex.disposables.Disposable;
 import io.reactivex.disposables.Disposables;
-import lombok.AllArgsConstructor;
 import lombok.val;
 
 /**
@@ -25,18 +22,33 @@ import lombok.val;
  * deadline, or the dispatch loop is not active.
  */
 public class FlexTimeScheduler extends Scheduler {
-  @AllArgsConstructor
-  private class Task implements Comparable<Task>, Disposable {
+  private abstract class Entry {
+    long deadline, sequenceNumber;
+    // Position in the task queue, or -1 if not queued.
+    int index = -1;
+
+    boolean precedes(final Entry o) {
+      return deadline != o.deadline ? deadline < o.deadline : sequenceNumber < o.sequenceNumber;
+    }
+
+    abstract boolean isDisposed();
+
+    /**
+     * Gets the runnable to execute when this entry is dequeued, or null if it has
+     * been disposed.
+     */
+    abstract Runnable runnable();
+  }
+
+  private class Task extends Entry implements Disposable {
     final Disposable parent;
-    final long deadline, sequenceNumber;
     volatile Runnable run;
 
-    @Override
-    public int compareTo(final Task o) {
-      return ComparisonChain.start()
-          .compare(deadline, o.deadline)
-          .compare(sequenceNumber, o.sequenceNumber)
-          .result();
+    Task(final Disposable parent, final long deadline, final long sequenceNumber, final Runnable run) {
+      this.parent = parent;
+      this.deadline = deadline;
+      this.sequenceNumber = sequenceNumber;
+      this.run = run;
     }
 
     @Override
@@ -48,6 +60,155 @@ public class FlexTimeScheduler extends Scheduler {
     public boolean isDisposed() {
       return run == null || parent.isDisposed();
     }
+
+    @Override
+    Runnable runnable() {
+      return run;
+    }
+  }
+
+  /**
+   * A reusable task that is moved within the task queue when rescheduled rather
+   * than leaving a disposed entry behind.
+   */
+  private class InPlaceTask extends Entry implements ReusableTask {
+    final Runnable run;
+
+    InPlaceTask(final Runnable run) {
+      this.run = run;
+    }
+
+    @Override
+    public void schedule(final long deadline) {
+      lock.lock();
+      try {
+        if (controller.isDisposed()) {
+          return;
+        }
+
+        if (index >= 0) {
+          tasks.remove(this);
+        }
+        this.deadline = deadline;
+        sequenceNumber = FlexTimeScheduler.this.sequenceNumber++;
+        enqueue(this);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      lock.lock();
+      try {
+        if (index >= 0) {
+          tasks.remove(this);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    boolean isDisposed() {
+      return false;
+    }
+
+    @Override
+    Runnable runnable() {
+      return run;
+    }
+  }
+
+  /**
+   * A binary heap of entries that tracks each entry's position so that entries
+   * can be removed or rescheduled in logarithmic time.
+   */
+  private static class TaskQueue {
+    private Entry[] heap = new Entry[16];
+    private int size;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    Entry peek() {
+      return size == 0 ? null : heap[0];
+    }
+
+    void add(final Entry entry) {
+      if (size == heap.length) {
+        heap = Arrays.copyOf(heap, 2 * size);
+      }
+      heap[size] = entry;
+      entry.index = size;
+      siftUp(size++);
+    }
+
+    Entry poll() {
+      final Entry head = heap[0];
+      remove(head);
+      return head;
+    }
+
+    void remove(final Entry entry) {
+      final int i = entry.index;
+      final Entry last = heap[--size];
+      heap[size] = null;
+      entry.index = -1;
+      if (i != size) {
+        heap[i] = last;
+        last.index = i;
+        siftDown(i);
+        if (heap[i] == last) {
+          siftUp(i);
+        }
+      }
+    }
+
+    void clear() {
+      for (int i = 0; i < size; ++i) {
+        heap[i].index = -1;
+        heap[i] = null;
+      }
+      size = 0;
+    }
+
+    private void siftUp(int i) {
+      final Entry entry = heap[i];
+      while (i > 0) {
+        final int parent = (i - 1) / 2;
+        if (!entry.precedes(heap[parent])) {
+          break;
+        }
+        heap[i] = heap[parent];
+        heap[i].index = i;
+        i = parent;
+      }
+      heap[i] = entry;
+      entry.index = i;
+    }
+
+    private void siftDown(int i) {
+      final Entry entry = heap[i];
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && heap[child + 1].precedes(heap[child])) {
+          ++child;
+        }
+        if (!heap[child].precedes(entry)) {
+          break;
+        }
+        heap[i] = heap[child];
+        heap[i].index = i;
+        i = child;
+      }
+      heap[i] = entry;
+      entry.index = i;
+    }
   }
 
   private final Executor threadPool;
@@ -58,7 +219,7 @@ public class FlexTimeScheduler extends Scheduler {
   private final Condition delayCondition = lock.newCondition();
 
   private long sequenceNumber = Long.MIN_VALUE;
-  private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+  private final TaskQueue tasks = new TaskQueue();
   private CompletableFuture<Thread> thread;
   private Disposable controller = Disposables.empty();
 
@@ -100,25 +261,33 @@ public class FlexTimeScheduler extends Scheduler {
       }
 
       final Task task = new Task(controller, deadline, sequenceNumber++, run);
-      tasks.add(task);
-      if (thread == null) {
-        if (pauseCount == 0) {
-          // Handle RejectedExecutionException in stride. This behavior is consistent with
-          // Schedulers.from(Executor). Alternate strategies include rethrowing, with or
-          // without enqueuing.
-          startDispatch();
-        }
-      } else {
-        if (tasks.peek() == task) {
-          delayCondition.signal();
-        }
-      }
+      enqueue(task);
       return task;
     } finally {
       lock.unlock();
     }
   }
 
+  /**
+   * Adds an entry to the task queue and makes sure the dispatch loop will see it.
+   * Must be called while holding the lock.
+   */
+  private void enqueue(final Entry entry) {
+    tasks.add(entry);
+    if (thread == null) {
+      if (pauseCount == 0) {
+        // Handle RejectedExecutionException in stride. This behavior is consistent with
+        // Schedulers.from(Executor). Alternate strategies include rethrowing, with or
+        // without enqueuing.
+        startDispatch();
+      }
+    } else {
+      if (tasks.peek() == entry) {
+        delayCondition.signal();
+      }
+    }
+  }
+
   private void startDispatch() {
     setTimeMode(TimeMode.FAKE);
     thread = new CompletableFuture<>();
@@ -184,7 +353,7 @@ public class FlexTimeScheduler extends Scheduler {
         if (!Thread.currentThread()
             .isInterrupted()) {
           while (!tasks.isEmpty() && pauseCount == 0) {
-            final Task head = tasks.peek();
+            final Entry head = tasks.peek();
 
             if (head.isDisposed()) {
               tasks.poll();
@@ -206,7 +375,7 @@ public class FlexTimeScheduler extends Scheduler {
               continue;
             }
 
-            final Runnable run = tasks.poll().run;
+            final Runnable run = tasks.poll().runnable();
             if (run != null)
               return run;
           }
@@ -249,14 +418,15 @@ public class FlexTimeScheduler extends Scheduler {
       pause();
       setTimeMode(TimeMode.FAKE);
       while (!tasks.isEmpty()) {
-        final Task task = tasks.poll();
+        final Entry task = tasks.poll();
         final long delta = task.deadline - now();
         if (delta > 0) {
           time += delta;
         }
 
-        if (task.run != null) {
-          task.run.run();
+        final Runnable run = task.runnable();
+        if (run != null) {
+          run.run();
         }
       }
       setTimeMode(TimeMode.REAL);
@@ -279,9 +449,9 @@ public class FlexTimeScheduler extends Scheduler {
           time += delta;
         }
 
-        final Task task = tasks.poll();
-        if (task.run != null) {
-          task.run.run();
+        final Runnable run = tasks.poll().runnable();
+        if (run != null) {
+          run.run();
         }
       }
 
@@ -403,6 +573,15 @@ public class FlexTimeScheduler extends Scheduler {
     }
   }
 
+  /**
+   * Creates a task that is rescheduled in place within the task queue. This
+   * method is safe to be called from multiple threads.
+   */
+  @Override
+  public ReusableTask newTask(final Runnable run) {
+    return new InPlaceTask(run);
+  }
+
   @Override
   public Disposable postTask(Runnable task) {
     return postTask(task, now());
@@ -0,0 +1,224 @@
+package ai.xng;
+
+import java.io.Serializable;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * An immutable distribution with a single value and weight, used for edges
+ * that are no longer plastic. Most frozen edges share a handful of
+ * coefficients, so instances are interned.
+ * <p>
+ * This mirrors a {@link UnimodalHypothesis} with no tails, which it can be
+ * thawed back into.
+ * <p>
+ * Frozen distributions may be {@linkplain #quantized quantized} to a coarser
+ * {@link Precision}, in which case they hold 16-bit codes that are decoded on
+ * read. Since instances are interned, fewer distinct codes means more edges
+ * share each instance.
+ */
+public interface FrozenDistribution extends Distribution, Serializable {
+  /**
+   * How finely frozen values are kept. Weights are kept at {@link #HALF}
+   * precision by both reduced modes.
+   */
+  enum Precision {
+    FULL {
+      @Override
+      public short encode(final float x, final float scale) {
+        throw new UnsupportedOperationException("Full precision values are not encoded.");
+      }
+
+      @Override
+      public float decode(final short code, final float scale) {
+        throw new UnsupportedOperationException("Full precision values are not encoded.");
+      }
+    },
+    /**
+     * IEEE half-precision floats, for a relative error of at most 2<sup>-11</sup>
+     * between 2<sup>-14</sup> and 65504. Larger magnitudes are clamped and
+     * smaller ones lose precision gradually. The scale is ignored.
+     */
+    HALF {
+      @Override
+      public short encode(final float x, final float scale) {
+        final int bits = Float.floatToRawIntBits(x);
+        final int sign = bits >>> 16 & 0x8000;
+        final int magnitude = bits & 0x7fffffff;
+        final int rounded = magnitude + 0x1000;
+        if (rounded >= 0x477ff000) {
+          return (short) (sign | 0x7bff);
+        }
+        if (rounded >= 0x38800000) {
+          return (short) (sign | rounded - 0x38000000 >>> 13);
+        }
+        if (magnitude < 0x33000000) {
+          return (short) sign;
+        }
+        final int shift = 126 - (magnitude >>> 23);
+        final int significand = magnitude & 0x7fffff | 0x800000;
+        return (short) (sign | significand + (1 << shift - 1) >>> shift);
+      }
+
+      @Override
+      public float decode(final short code, final float scale) {
+        final int sign = (code & 0x8000) << 16;
+        final int magnitude = code & 0x7fff;
+        if (magnitude >= 0x400) {
+          return Float.intBitsToFloat(sign | magnitude + 0x1c000 << 13);
+        }
+        return Float.intBitsToFloat(sign | Float.floatToRawIntBits(magnitude * 0x1p-24f));
+      }
+    },
+    /**
+     * 255 levels spanning {@code [-scale, scale]}, for an absolute error of at
+     * most {@code scale / 254}. Values beyond the scale are clamped.
+     */
+    BYTE {
+      @Override
+      public short encode(final float x, final float scale) {
+        if (scale == 0) {
+          return 0;
+        }
+        return (short) Math.max(-127, Math.min(127, Math.round(x / scale * 127)));
+      }
+
+      @Override
+      public float decode(final short code, final float scale) {
+        return code * scale / 127;
+      }
+    };
+
+    public abstract short encode(float x, float scale);
+
+    public abstract float decode(short code, float scale);
+
+    public float round(final float x, final float scale) {
+      return this == FULL ? x : decode(encode(x, scale), scale);
+    }
+  }
+
+  /**
+   * A frozen distribution at full precision.
+   */
+  record Full(float value, float weight) implements FrozenDistribution {
+    private static final Interner<Full> interned = Interners.newWeakInterner();
+
+    private Object readResolve() {
+      return interned.intern(this);
+    }
+
+    @Override
+    public FrozenDistribution scaled(final float factor) {
+      return of(value * factor, weight);
+    }
+
+    @Override
+    public float getMax() {
+      return value;
+    }
+
+    @Override
+    public float getWeight() {
+      return weight;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("μ = %.4g, w = %.2f (frozen)", getMode(), weight);
+    }
+  }
+
+  /**
+   * A frozen distribution held as codes of a reduced {@link Precision}. For
+   * {@link Precision#BYTE}, {@code scale} is shared by the cluster the edge was
+   * quantized with, so scaling the distribution only changes the scale.
+   */
+  record Quantized(Precision precision, float scale, short value, short weight) implements FrozenDistribution {
+    private static final Interner<Quantized> interned = Interners.newWeakInterner();
+
+    private Object readResolve() {
+      return interned.intern(this);
+    }
+
+    @Override
+    public FrozenDistribution scaled(final float factor) {
+      if (precision == Precision.BYTE) {
+        return interned.intern(new Quantized(precision, scale * factor, value, weight));
+      }
+      return interned.intern(new Quantized(precision, scale, precision.encode(getMax() * factor, scale), weight));
+    }
+
+    @Override
+    public float getMax() {
+      return precision.decode(value, scale);
+    }
+
+    @Override
+    public float getWeight() {
+      return Precision.HALF.decode(weight, 0);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("μ = %.4g, w = %.2f (frozen, %s)", getMode(), getWeight(), precision);
+    }
+  }
+
+  static FrozenDistribution of(final float value, final float weight) {
+    return Full.interned.intern(new Full(value, weight));
+  }
+
+  FrozenDistribution scaled(float factor);
+
+  /**
+   * Rounds the value to {@code precision}, where {@code scale} bounds the
+   * magnitude of values being rounded together.
+   */
+  default FrozenDistribution quantized(final Precision precision, final float scale) {
+    if (precision == Precision.FULL) {
+      return this;
+    }
+    // HALF ignores the scale, so drop it to let edges from different clusters
+    // share instances.
+    final float kept = precision == Precision.BYTE ? scale : 0;
+    return Quantized.interned.intern(new Quantized(precision, kept, precision.encode(getMax(), kept),
+        Precision.HALF.encode(getWeight(), 0)));
+  }
+
+  default UnimodalHypothesis thaw() {
+    return new UnimodalHypothesis(getMax(), getWeight());
+  }
+
+  @Override
+  default void set(final float value, final float weight) {
+    throw new UnsupportedOperationException("Frozen distributions are immutable.");
+  }
+
+  @Override
+  default void add(final float value, final float weight) {
+    throw new UnsupportedOperationException("Frozen distributions are immutable.");
+  }
+
+  @Override
+  default void scale(final float factor) {
+    throw new UnsupportedOperationException("Frozen distributions are immutable.");
+  }
+
+  @Override
+  default float generate() {
+    return getMode();
+  }
+
+  @Override
+  default float getMin() {
+    return getMax();
+  }
+
+  @Override
+  default float getMode() {
+    final float weight = getWeight();
+    return getMax() * weight / Math.max(weight, UnimodalHypothesis.CRITICAL_SUPPORT);
+  }
+}
@@ -0,0 +1,94 @@
+package ai.xng;
+
+import java.util.Arrays;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+import lombok.val;
+
+/**
+ * Records edges for a circuit and creates them in one pass. Edges are buffered
+ * in parallel arrays; on {@link #commit()}, each edge table that will receive
+ * edges is grown once to fit them before any are inserted, rather than
+ * rehashing repeatedly as a hub node accumulates edges.
+ * <p>
+ * Edges that already exist are updated in place, as with
+ * {@link Connections.Posteriors#getEdge(Posterior, IntegrationProfile)}.
+ */
+public class GraphBuilder {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static record Inbound(Posterior posterior, Cluster<?> cluster, IntegrationProfile profile) {
+  }
+
+  private Prior[] priors = new Prior[INITIAL_CAPACITY];
+  private Posterior[] posteriors = new Posterior[INITIAL_CAPACITY];
+  private IntegrationProfile[] profiles = new IntegrationProfile[INITIAL_CAPACITY];
+  private float[] coefficients = new float[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Records an edge as {@link Prior#then(Posterior)} would create it.
+   */
+  public <T extends Posterior> T then(final Prior prior, final T posterior) {
+    edge(prior, posterior, IntegrationProfile.TRANSIENT, Prior.DEFAULT_COEFFICIENT);
+    return posterior;
+  }
+
+  /**
+   * Records an edge as {@link Prior#inhibit(Posterior)} would create it.
+   */
+  public void inhibit(final Prior prior, final Posterior posterior) {
+    edge(prior, posterior, IntegrationProfile.TRANSIENT, -1);
+  }
+
+  public GraphBuilder edge(final Prior prior, final Posterior posterior, final IntegrationProfile profile,
+      final float coefficient) {
+    if (size == priors.length) {
+      priors = Arrays.copyOf(priors, 2 * size);
+      posteriors = Arrays.copyOf(posteriors, 2 * size);
+      profiles = Arrays.copyOf(profiles, 2 * size);
+      coefficients = Arrays.copyOf(coefficients, 2 * size);
+    }
+    priors[size] = prior;
+    posteriors[size] = posterior;
+    profiles[size] = profile;
+    coefficients[size++] = coefficient;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Creates or updates all recorded edges, in the order they were recorded, and
+   * clears the builder.
+   */
+  public void commit() {
+    final Multiset<Prior> outbound = HashMultiset.create();
+    final Multiset<Inbound> inbound = HashMultiset.create();
+    for (int i = 0; i < size; ++i) {
+      outbound.add(priors[i]);
+      inbound.add(new Inbound(posteriors[i], priors[i].getCluster(), profiles[i]));
+    }
+
+    for (val entry : outbound.entrySet()) {
+      entry.getElement().getPosteriors().reserve(entry.getCount());
+    }
+    for (val entry : inbound.entrySet()) {
+      val key = entry.getElement();
+      key.posterior().getPriors().reserve(key.cluster(), key.profile(), entry.getCount());
+    }
+
+    for (int i = 0; i < size; ++i) {
+      priors[i].getPosteriors().getEdge(posteriors[i], profiles[i]).set(coefficients[i]);
+    }
+
+    Arrays.fill(priors, 0, size, null);
+    Arrays.fill(posteriors, 0, size, null);
+    Arrays.fill(profiles, 0, size, null);
+    size = 0;
+  }
+}
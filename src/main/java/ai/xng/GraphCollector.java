@@ -0,0 +1,232 @@
+package ai.xng;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Detaches nodes that can no longer be activated through the graph. Posteriors
+ * are held strongly by their priors, so a node that nothing can activate may
+ * still be kept alive by stale edges. This collector marks every node reachable
+ * from a set of roots through positive edges and then removes all edges to and
+ * from unmarked nodes, leaving them to the garbage collector.
+ * <p>
+ * Collection is incremental. Each call to {@link #collect(long)} advances the
+ * current cycle (snapshot, mark, sweep) until its time budget is spent. Since
+ * the graph may change between calls, nodes registered after a cycle begins
+ * are never swept in that cycle, and neither are nodes activated recently
+ * enough to still be associated.
+ * <p>
+ * Only nodes in the collector's registry are managed. Like the rest of the
+ * graph, this is not thread-safe and should run on the thread that drives the
+ * graph.
+ */
+@RequiredArgsConstructor
+public class GraphCollector implements Serializable {
+  private enum Phase {
+    SNAPSHOT, MARK, SWEEP
+  }
+
+  private final NodeRegistry registry;
+  private final Set<Node> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Set<Cluster<?>> rootClusters = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private transient Phase phase;
+  private transient long cycleStart;
+  private transient long[] handles;
+  private transient BitSet marked;
+  private transient int[] stack;
+  private transient int stackSize, cursor;
+
+  @Getter
+  private long cycles, detachedNodes, detachedEdges;
+
+  public void addRoot(final Node node) {
+    roots.add(node);
+  }
+
+  /**
+   * Treats every node in {@code cluster} as a root. This is appropriate for
+   * clusters whose nodes are activated from outside the graph.
+   */
+  public void addRootCluster(final Cluster<?> cluster) {
+    rootClusters.add(cluster);
+  }
+
+  /**
+   * Treats every node currently in the registry as a root. This pins structure
+   * built up front, such as a bootstrap, so that only nodes created afterwards
+   * are collectable.
+   */
+  public void addExistingRoots() {
+    for (int id = 0; id < registry.capacity(); ++id) {
+      val node = registry.get(id);
+      if (node != null) {
+        roots.add(node);
+      }
+    }
+  }
+
+  /**
+   * Advances collection for up to {@code budgetNanos} nanoseconds.
+   *
+   * @return whether a cycle was completed
+   */
+  public boolean collect(final long budgetNanos) {
+    final long deadline = System.nanoTime() + budgetNanos;
+    if (phase == null) {
+      begin();
+    }
+
+    do {
+      if (phase == Phase.SNAPSHOT) {
+        if (cursor == handles.length) {
+          phase = Phase.MARK;
+        } else {
+          snapshot(cursor++);
+        }
+      } else if (phase == Phase.MARK) {
+        if (stackSize == 0) {
+          phase = Phase.SWEEP;
+          cursor = 0;
+        } else {
+          scan(stack[--stackSize]);
+        }
+      } else {
+        if (cursor == handles.length) {
+          end();
+          return true;
+        }
+        sweep(cursor++);
+      }
+    } while (System.nanoTime() - deadline < 0);
+
+    return false;
+  }
+
+  private void begin() {
+    phase = Phase.SNAPSHOT;
+    cycleStart = Scheduler.global.now();
+    handles = new long[registry.capacity()];
+    marked = new BitSet(handles.length);
+    stack = new int[16];
+    stackSize = cursor = 0;
+  }
+
+  private void end() {
+    phase = null;
+    handles = null;
+    marked = null;
+    stack = null;
+    ++cycles;
+  }
+
+  private void snapshot(final int id) {
+    val node = registry.get(id);
+    if (node == null) {
+      handles[id] = -1;
+      return;
+    }
+
+    handles[id] = registry.handle(id);
+    if (roots.contains(node) || rootClusters.contains(node.getCluster()) || isRecent(node)) {
+      mark(id);
+    }
+  }
+
+  private Node resolve(final int id) {
+    return id < handles.length && handles[id] != -1 ? registry.resolve(handles[id]) : null;
+  }
+
+  private void mark(final int id) {
+    marked.set(id);
+    if (stackSize == stack.length) {
+      stack = Arrays.copyOf(stack, 2 * stackSize);
+    }
+    stack[stackSize++] = id;
+  }
+
+  private void scan(final int id) {
+    if (!(resolve(id) instanceof Prior prior)) {
+      return;
+    }
+
+    for (val entry : prior.getPosteriors()) {
+      val posterior = entry.node();
+      if (entry.edge().getMode() > 0 && posterior.getCluster().getRegistry() == registry) {
+        final int posteriorId = posterior.getId();
+        if (posteriorId < handles.length && !marked.get(posteriorId)) {
+          mark(posteriorId);
+        }
+      }
+    }
+  }
+
+  private void sweep(final int id) {
+    if (marked.get(id)) {
+      return;
+    }
+    val node = resolve(id);
+    if (node == null) {
+      return;
+    }
+    if (isRecent(node) || node instanceof Posterior posterior && hasLivePrior(posterior)) {
+      // The node was activated or connected after the mark phase looked at it.
+      return;
+    }
+
+    int detached = 0;
+    if (node instanceof Prior prior) {
+      detached += prior.getPosteriors().release();
+    }
+    if (node instanceof Posterior posterior) {
+      val it = posterior.getPriors().iterator();
+      while (it.hasNext()) {
+        it.next();
+        it.remove();
+        ++detached;
+      }
+    }
+
+    if (detached > 0) {
+      ++detachedNodes;
+      detachedEdges += detached;
+    }
+  }
+
+  /**
+   * Whether {@code node} was activated recently enough that it may still take
+   * part in associations.
+   */
+  private boolean isRecent(final Node node) {
+    return registry.getLastActivation(node.getId()) > cycleStart - Node.TRACE_SAMPLE_TTL;
+  }
+
+  /**
+   * Whether {@code posterior} has a positive edge from a prior that is marked,
+   * recent, unmanaged, or newer than the current cycle.
+   */
+  private boolean hasLivePrior(final Posterior posterior) {
+    for (val entry : posterior.getPriors()) {
+      if (entry.edge().getMode() <= 0) {
+        continue;
+      }
+      val prior = entry.node();
+      if (prior.getCluster().getRegistry() != registry) {
+        return true;
+      }
+      final int id = prior.getId();
+      if (resolve(id) != prior || marked.get(id) || isRecent(prior)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
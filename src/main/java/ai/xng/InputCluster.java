@@ -1,6 +1,13 @@
 package ai.xng;
 
 public class InputCluster extends Cluster<InputCluster.Node> {
+  public InputCluster() {
+  }
+
+  public InputCluster(final NodeRegistry registry) {
+    super(registry);
+  }
+
   public class Node extends InputNode {
     private final Link link;
 
@@ -8,6 +15,11 @@ public class InputCluster extends Cluster<InputCluster.Node> {
       link = new Link(this);
     }
 
+    @Override
+    public int getId() {
+      return link.getId();
+    }
+
     @Override
     public InputCluster getCluster() {
       return InputCluster.this;
@@ -3,8 +3,8 @@ package ai.xng;
 import java.util.Optional;
 
 public abstract class InputNode implements Prior {
-  private final Node.Trait node = new Node.Trait();
-  private final Prior.Trait output = new Prior.Trait(this);
+  private final Node.Trait node = new Node.Trait(this);
+  private final Prior.Trait output = new Prior.Trait();
 
   @Override
   public LazyIntegrator getTrace() {
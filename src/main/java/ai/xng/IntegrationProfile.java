@@ -1,29 +1,121 @@
 package ai.xng;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 
 import lombok.val;
 
-public record IntegrationProfile(long delay, long peak, long period) implements Serializable {
+/**
+ * The shape of a spike in a posterior integrator. Profiles are interned so that
+ * each distinct shape has a single instance with a small dense ID. Profiles can
+ * be compared by identity and keyed by {@link #id()}.
+ */
+public final class IntegrationProfile implements Serializable {
+  private static record Shape(long delay, long peak, long period) {
+  }
+
+  private static final Map<Shape, IntegrationProfile> interned = new HashMap<>();
+  private static final List<IntegrationProfile> byId = new ArrayList<>();
 
-  public static final IntegrationProfile TRANSIENT = new IntegrationProfile(0, 5, 50);
-  public static final IntegrationProfile TWOGRAM = new IntegrationProfile(0, 5, 400);
-  public static final IntegrationProfile PERSISTENT = new IntegrationProfile(50, 100, 3000);
+  public static final IntegrationProfile TRANSIENT = of(0, 5, 50);
+  public static final IntegrationProfile TWOGRAM = of(0, 5, 400);
+  public static final IntegrationProfile PERSISTENT = of(50, 100, 3000);
 
   public static ImmutableList<IntegrationProfile> COMMON = ImmutableList.of(TRANSIENT, PERSISTENT);
 
+  private final long delay, peak, period;
+
+  // IDs are assigned in interning order and so are not stable across processes.
+  // Profiles are serialized by shape and re-interned on deserialization.
+  private transient short id;
+  private transient long rampUp, rampDown, defaultInterval;
+
+  private IntegrationProfile(final long delay, final long peak, final long period) {
+    this.delay = delay;
+    this.peak = peak;
+    this.period = period;
+    init();
+  }
+
+  private void init() {
+    rampUp = peak - delay;
+    rampDown = period - peak;
+    defaultInterval = delay + (long) Math.ceil(rampUp / Prior.DEFAULT_COEFFICIENT);
+  }
+
+  /**
+   * Gets the interned profile with the given shape. Both ramps must have
+   * positive duration, since integrators derive their rates by dividing by them.
+   */
+  public static IntegrationProfile of(final long delay, final long peak, final long period) {
+    if (delay >= peak || peak >= period) {
+      throw new IllegalArgumentException(String.format(
+          "Delay (%s), peak (%s) and period (%s) must be strictly increasing.", delay, peak, period));
+    }
+    synchronized (interned) {
+      return interned.computeIfAbsent(new Shape(delay, peak, period), shape -> {
+        if (byId.size() > Short.MAX_VALUE) {
+          throw new IllegalStateException("Too many distinct integration profiles.");
+        }
+        val profile = new IntegrationProfile(delay, peak, period);
+        profile.id = (short) byId.size();
+        byId.add(profile);
+        return profile;
+      });
+    }
+  }
+
   public static IntegrationProfile fromEdges(long rampUp, long rampDown) {
-    return new IntegrationProfile(0, rampUp, rampUp + rampDown);
+    return of(0, rampUp, rampUp + rampDown);
+  }
+
+  /**
+   * Gets the interned profile with the given ID.
+   */
+  public static IntegrationProfile byId(final int id) {
+    synchronized (interned) {
+      return byId.get(id);
+    }
+  }
+
+  private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
+    o.defaultReadObject();
+    init();
+  }
+
+  private Object readResolve() {
+    return of(delay, peak, period);
+  }
+
+  public short id() {
+    return id;
+  }
+
+  public long delay() {
+    return delay;
+  }
+
+  public long peak() {
+    return peak;
+  }
+
+  public long period() {
+    return period;
   }
 
   public long rampUp() {
-    return peak - delay;
+    return rampUp;
   }
 
   public long rampDown() {
-    return period - peak;
+    return rampDown;
   }
 
   /**
@@ -31,7 +123,12 @@ public record IntegrationProfile(long delay, long peak, long period) implements
    * {@link Prior#DEFAULT_COEFFICIENT}.
    */
   public long defaultInterval() {
-    return delay + (long) Math.ceil(rampUp() / Prior.DEFAULT_COEFFICIENT);
+    return defaultInterval;
+  }
+
+  @Override
+  public int hashCode() {
+    return id;
   }
 
   @Override
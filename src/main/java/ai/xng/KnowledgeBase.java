@@ -21,20 +21,28 @@ public class KnowledgeBase implements Serializable, AutoCloseable {
 
   private transient Subject<String> rxOutput;
 
-  public final InputCluster input = new InputCluster();
-  public final DataCluster data = new DataCluster(input);
+  /**
+   * Assigns IDs to all nodes in this knowledge base's clusters. Clusters created
+   * on behalf of this knowledge base should use this registry as well.
+   */
+  public final NodeRegistry registry = new NodeRegistry();
+  public final EdgePruner pruner = new EdgePruner(registry);
+  public final GraphCollector collector = new GraphCollector(registry);
+
+  public final InputCluster input = new InputCluster(registry);
+  public final DataCluster data = new DataCluster(registry, input);
   public final DataCluster.MutableNode<String> inputValue = data.new MutableNode<>();
   public final DataCluster.MutableNode<Throwable> lastException = data.new MutableNode<>();
   public final DataCluster.MutableNode<Object> returnValue = data.new MutableNode<>();
 
-  public final BiCluster stateRecognition = new BiCluster("stateRecognition"),
-      sequenceRecognition = new BiCluster("sequenceRecognition"),
-      context = new BiCluster("context"),
-      naming = new BiCluster("naming"),
-      entrypoint = new BiCluster("entrypoint"),
-      execution = new BiCluster("execution");
-  public final ActionCluster actions = new ActionCluster(lastException);
-  public final SignalCluster signals = new SignalCluster();
+  public final BiCluster stateRecognition = new BiCluster(registry, "stateRecognition"),
+      sequenceRecognition = new BiCluster(registry, "sequenceRecognition"),
+      context = new BiCluster(registry, "context"),
+      naming = new BiCluster(registry, "naming"),
+      entrypoint = new BiCluster(registry, "entrypoint"),
+      execution = new BiCluster(registry, "execution");
+  public final ActionCluster actions = new ActionCluster(registry, lastException);
+  public final SignalCluster signals = new SignalCluster(registry);
 
   public final SignalCluster.Node variadicEnd = signals.new Node();
 
@@ -104,6 +112,12 @@ public class KnowledgeBase implements Serializable, AutoCloseable {
 
   public KnowledgeBase() {
     init();
+    // Input, actions and signals are driven from outside the graph. Everything
+    // else that exists at this point is public structure.
+    collector.addRootCluster(input);
+    collector.addRootCluster(actions);
+    collector.addRootCluster(signals);
+    collector.addExistingRoots();
   }
 
   private void init() {
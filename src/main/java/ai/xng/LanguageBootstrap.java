@@ -3,8 +3,10 @@ package ai.xng;
 import static ai.xng.KnowledgeBase.POP_FACTOR;
 import static ai.xng.KnowledgeBase.PUSH_FACTOR;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
@@ -18,8 +20,15 @@ import lombok.val;
 
 public class LanguageBootstrap {
   private final KnowledgeBase kb;
+  // Sequence edges are buffered and created in bulk before the circuit first runs.
+  private final GraphBuilder graph = new GraphBuilder();
+  // Nodes along sequences, whose outgoing edges are hardwired control flow. These
+  // are frozen once the bootstrap is built. Other nodes the bootstrap touches, such
+  // as STM addresses and naming nodes, keep learning.
+  private final List<Prior> sequenced = new ArrayList<>();
 
   private <H extends Prior> Sequence<H> asSequence(final H start) {
+    sequenced.add(start);
     return new Sequence<>(start, start);
   }
 
@@ -29,20 +38,26 @@ public class LanguageBootstrap {
     Prior tail;
 
     public Sequence<H> thenDirect(final BiNode next) {
-      tail.then(next);
+      graph.then(tail, next);
+      sequenced.add(next);
       return new Sequence<>(head, next);
     }
 
+    private void step() {
+      tail = graph.then(tail, kb.execution.new Node());
+      sequenced.add(tail);
+    }
+
     public Sequence<H> then(final Posterior... p) {
-      tail = tail.then(kb.execution.new Node());
+      step();
       for (val e : p) {
-        tail.then(e);
+        graph.then(tail, e);
       }
       return this;
     }
 
     public Sequence<H> thenDelay() {
-      tail = tail.then(kb.execution.new Node());
+      step();
       return this;
     }
 
@@ -53,7 +68,7 @@ public class LanguageBootstrap {
     public Sequence<H> thenDelay(final long period) {
       final long dt = IntegrationProfile.TRANSIENT.defaultInterval();
       for (long t = 0; t < period; t += dt) {
-        tail = tail.then(kb.execution.new Node());
+        step();
       }
       return this;
     }
@@ -74,10 +89,10 @@ public class LanguageBootstrap {
         .add(kb.naming)
         .build();
 
-    final StmCluster stackFrame = new StmCluster("stackFrame"),
-        returnValue = new StmCluster("returnValue"),
-        cxt = new StmCluster("cxt"),
-        tmp = new StmCluster("tmp");
+    final StmCluster stackFrame = new StmCluster(kb.registry, "stackFrame"),
+        returnValue = new StmCluster(kb.registry, "returnValue"),
+        cxt = new StmCluster(kb.registry, "cxt"),
+        tmp = new StmCluster(kb.registry, "tmp");
     final BiCluster.Node staticContext = kb.naming.new Node("staticContext"),
         entrypoint = kb.naming.new Node("entrypoint"),
         arg1 = kb.naming.new Node("arg1"),
@@ -164,7 +179,7 @@ public class LanguageBootstrap {
           .then(iterator)
           .then(hasNextDecoder.node);
 
-      charCluster = new InputCluster();
+      charCluster = new InputCluster(kb.registry);
       charDecoder = new CharacterDecoder(kb.actions, kb.data, charCluster);
       onNext = kb.execution.new Node();
 
@@ -364,6 +379,8 @@ public class LanguageBootstrap {
             .then(bindPrintEntrypoint)
             .then(kb.associate(kb.stateRecognition, kb.entrypoint));
         control.stackFrame.address.then(call);
+        // Training runs the circuit, so everything recorded so far has to exist.
+        graph.commit();
         control.execute.activate();
         Scheduler.global.fastForwardUntilIdle();
         Scheduler.global.fastForwardFor(IntegrationProfile.PERSISTENT.period());
@@ -468,9 +485,8 @@ public class LanguageBootstrap {
 
       // TODO: simple conjunction, once timing is more robust
       val queryIsParsing = kb.actions.new Node(isParsing);
-      recognitionClass.character.getPosteriors().getEdge(queryIsParsing, IntegrationProfile.TRANSIENT).distribution
-          .set(.7f);
-      parse.staticContext.getPosteriors().getEdge(queryIsParsing, IntegrationProfile.TRANSIENT).distribution.set(.7f);
+      recognitionClass.character.getPosteriors().getEdge(queryIsParsing, IntegrationProfile.TRANSIENT).set(.7f);
+      parse.staticContext.getPosteriors().getEdge(queryIsParsing, IntegrationProfile.TRANSIENT).set(.7f);
 
       start.then(kb.actions.new Node(() -> builder.setLength(0)));
       end.inhibit(stringIterator.advance);
@@ -541,5 +557,14 @@ public class LanguageBootstrap {
         .then(kb.inputValue)
         .then(kb.associate(control.frameFieldPriors, kb.data))
         .then(control.execute);
+
+    graph.commit();
+
+    // Everything built so far is bootstrap structure rather than learned state.
+    kb.collector.addExistingRoots();
+    for (val node : sequenced) {
+      node.getPosteriors().freeze();
+    }
+    sequenced.clear();
   }
 }
@@ -1,16 +1,22 @@
 package ai.xng;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import ai.xng.util.TimeSeries;
-import lombok.val;
+import java.util.Arrays;
 
 public class LazyIntegrator {
-  private final List<TimeSeries<Float>> samples = new ArrayList<>();
+  private static final int INITIAL_CAPACITY = 2;
+
+  // Samples are kept in parallel primitive arrays to keep evaluation a flat scan.
+  private long[] times = new long[INITIAL_CAPACITY];
+  private float[] magnitudes = new float[INITIAL_CAPACITY];
+  private int size;
 
   public void add(final long start, final float magnitude) {
-    samples.add(new TimeSeries<>(magnitude, start));
+    if (size == times.length) {
+      times = Arrays.copyOf(times, 2 * size);
+      magnitudes = Arrays.copyOf(magnitudes, 2 * size);
+    }
+    times[size] = start;
+    magnitudes[size++] = magnitude;
   }
 
   /**
@@ -19,14 +25,17 @@ public class LazyIntegrator {
    * spike begins (with possible delay) at each time series point.
    */
   public float evaluate(final long t, final IntegrationProfile profile) {
+    final long delay = profile.delay(), peak = profile.peak(), period = profile.period();
+    final float rampUp = profile.rampUp(), rampDown = profile.rampDown();
+
     float value = 0;
-    for (val sample : samples) {
-      final long dt = t - sample.time();
-      if (dt > profile.delay()) {
-        if (dt < profile.peak()) {
-          value += sample.value() * (dt - profile.delay()) / profile.rampUp();
-        } else if (dt < profile.period()) {
-          value += sample.value() * (profile.period() - dt) / profile.rampDown();
+    for (int i = 0; i < size; ++i) {
+      final long dt = t - times[i];
+      if (dt > delay) {
+        if (dt < peak) {
+          value += magnitudes[i] * (dt - delay) / rampUp;
+        } else if (dt < period) {
+          value += magnitudes[i] * (period - dt) / rampDown;
         }
       }
     }
@@ -40,6 +49,13 @@ public class LazyIntegrator {
    * segment length is not known here.
    */
   public void evict(final long t) {
-    samples.removeIf(s -> s.time() <= t);
+    int dest = 0;
+    for (int src = 0; src < size; ++src) {
+      if (times[src] > t) {
+        times[dest] = times[src];
+        magnitudes[dest++] = magnitudes[src];
+      }
+    }
+    size = dest;
   }
-}
\ No newline at end of file
+}
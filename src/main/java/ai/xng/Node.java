@@ -12,36 +12,61 @@ public interface Node extends Serializable {
 
   Cluster<?> getCluster();
 
+  /**
+   * Gets the dense ID assigned to this node by its cluster's
+   * {@link NodeRegistry}.
+   */
+  int getId();
+
   LazyIntegrator getTrace();
 
   Optional<Long> getLastActivation();
 
+  /**
+   * Whether this node's trace under {@code profile} may be nonzero at {@code t}.
+   * Since the trace only has samples at activations, this is false once the
+   * last activation is a full period old.
+   */
+  default boolean hasTrace(final long t, final IntegrationProfile profile) {
+    final long lastActivation = getCluster().getRegistry().getLastActivation(getId());
+    return lastActivation != NodeRegistry.NEVER && t - lastActivation < profile.period();
+  }
+
   void activate();
 
+  /**
+   * Activation state common to all nodes. The last activation time is kept in
+   * the owner's {@link NodeRegistry} under the owner's ID, so the owner must be
+   * registered before this is used.
+   */
   class Trait implements Serializable {
     // Something to keep in mind that we might need:
     // http://www.scholarpedia.org/article/Spike-timing_dependent_plasticity#Triplet_rule_of_STDP
     // http://www.scholarpedia.org/article/Spike-timing_dependent_plasticity#Diversity_of_STDP
-    @Getter
-    private transient LazyIntegrator trace;
+    private final Node owner;
 
     @Getter
-    private transient Optional<Long> lastActivation;
+    private transient LazyIntegrator trace;
 
-    public Trait() {
+    public Trait(final Node owner) {
+      this.owner = owner;
       init();
     }
 
     private void init() {
       trace = new LazyIntegrator();
-      lastActivation = Optional.empty();
+    }
+
+    public Optional<Long> getLastActivation() {
+      final long lastActivation = owner.getCluster().getRegistry().getLastActivation(owner.getId());
+      return lastActivation == NodeRegistry.NEVER ? Optional.empty() : Optional.of(lastActivation);
     }
 
     public void activate() {
       final long now = Scheduler.global.now();
       trace.evict(now - TRACE_SAMPLE_TTL);
       trace.add(now, 1);
-      lastActivation = Optional.of(now);
+      owner.getCluster().getRegistry().setLastActivation(owner.getId(), now);
     }
 
     private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
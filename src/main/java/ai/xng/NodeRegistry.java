@@ -0,0 +1,296 @@
+package ai.xng;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntSupplier;
+
+/**
+ * Assigns dense integer IDs to nodes and maps IDs back to nodes in constant
+ * time. The registry holds nodes weakly; once a node has been reclaimed, its ID
+ * is recycled.
+ * <p>
+ * Since IDs are recycled, references that need to outlive a node should use a
+ * handle, which pairs the ID with a generation that changes whenever the ID is
+ * recycled.
+ * <p>
+ * IDs are not persisted. Nodes are assigned fresh IDs when they are
+ * deserialized.
+ * <p>
+ * Reclaimed nodes are discovered through a {@link ReferenceQueue}. The queue
+ * is drained a bounded number of entries at a time on each registration, or
+ * fully by {@link #reclaim()}.
+ * <p>
+ * The registry also keeps per-node state that is scanned often, such as last
+ * activation times, in primitive columns indexed by ID. Scans that only need
+ * this state then read contiguous arrays rather than visiting each node.
+ */
+public class NodeRegistry implements Serializable {
+  private static final int INITIAL_CAPACITY = 64;
+  /**
+   * Columns are allocated in chunks of 2<sup>COLUMN_SHIFT</sup> entries.
+   */
+  private static final int COLUMN_SHIFT = 8, COLUMN_MASK = (1 << COLUMN_SHIFT) - 1;
+  /**
+   * The maximum number of reclaimed nodes released per registration.
+   */
+  private static final int RECLAIM_BATCH = 16;
+
+  /**
+   * The registry used by clusters that are not created with an explicit registry.
+   */
+  public static final NodeRegistry DEFAULT = new NodeRegistry(true);
+
+  /**
+   * The last activation time of a node that has never been activated.
+   */
+  public static final long NEVER = Long.MIN_VALUE;
+
+  private static class Ref extends WeakReference<Node> {
+    final int id;
+    final IntSupplier onReclaim;
+
+    Ref(final Node node, final int id, final IntSupplier onReclaim, final ReferenceQueue<Node> queue) {
+      super(node, queue);
+      this.id = id;
+      this.onReclaim = onReclaim;
+    }
+  }
+
+  private final boolean isDefault;
+
+  /**
+   * Slots are written under the registry's lock and read without it. The arrays
+   * are republished when they grow, generations first, so a reader that sees a
+   * grown {@code refs} also sees the matching generations.
+   */
+  private transient volatile AtomicReferenceArray<Ref> refs;
+  private transient volatile AtomicIntegerArray generations;
+  /**
+   * Last activation times in fixed chunks. Growing the column only copies the
+   * chunk array, so chunks never move and writes made during growth are not
+   * lost. Activations may write from any thread.
+   */
+  private transient volatile AtomicLongArray[] lastActivations;
+  private transient int[] free;
+  private transient int freeCount;
+  private transient volatile int highWater, size;
+  private transient ReferenceQueue<Node> queue;
+  private transient long reclaimedIds, releasedEntries;
+
+  public NodeRegistry() {
+    this(false);
+  }
+
+  private NodeRegistry(final boolean isDefault) {
+    this.isDefault = isDefault;
+    init();
+  }
+
+  private void init() {
+    refs = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    generations = new AtomicIntegerArray(INITIAL_CAPACITY);
+    lastActivations = new AtomicLongArray[1];
+    free = new int[INITIAL_CAPACITY];
+    queue = new ReferenceQueue<>();
+  }
+
+  private void readObject(final ObjectInputStream o) throws ClassNotFoundException, IOException {
+    o.defaultReadObject();
+    init();
+  }
+
+  private Object readResolve() {
+    return isDefault ? DEFAULT : this;
+  }
+
+  /**
+   * Assigns an ID to {@code node}. Reclaimed IDs are reused before new ones are
+   * allocated.
+   */
+  public int register(final Node node) {
+    return register(node, null);
+  }
+
+  /**
+   * Assigns an ID to {@code node}, running {@code onReclaim} once the node has
+   * been reclaimed. The callback releases any entries that other nodes hold for
+   * this node and returns how many it released. It must not strongly reference
+   * the node. Callbacks run on whichever thread drains the queue.
+   */
+  public synchronized int register(final Node node, final IntSupplier onReclaim) {
+    reclaim(RECLAIM_BATCH);
+
+    final int id;
+    if (freeCount > 0) {
+      id = free[--freeCount];
+    } else {
+      id = highWater++;
+      if (id == refs.length()) {
+        grow(2 * id);
+      }
+    }
+
+    refs.set(id, new Ref(node, id, onReclaim, queue));
+    lastActivations(id).set(id & COLUMN_MASK, NEVER);
+    ++size;
+    return id;
+  }
+
+  private void grow(final int capacity) {
+    final AtomicIntegerArray generations = new AtomicIntegerArray(capacity);
+    final AtomicReferenceArray<Ref> refs = new AtomicReferenceArray<>(capacity);
+    for (int id = 0; id < this.refs.length(); ++id) {
+      generations.set(id, this.generations.get(id));
+      refs.set(id, this.refs.get(id));
+    }
+    this.generations = generations;
+    this.refs = refs;
+  }
+
+  /**
+   * Gets the column chunk for {@code id}, allocating it if needed. Readers see
+   * the chunk once the column is republished, which happens before the ID is
+   * handed out.
+   */
+  private AtomicLongArray lastActivations(final int id) {
+    final int index = id >>> COLUMN_SHIFT;
+    AtomicLongArray[] column = lastActivations;
+    if (index >= column.length) {
+      column = Arrays.copyOf(column, 2 * index);
+    }
+    if (column[index] == null) {
+      column[index] = new AtomicLongArray(1 << COLUMN_SHIFT);
+    }
+    lastActivations = column;
+    return column[index];
+  }
+
+  /**
+   * Releases the IDs of all nodes that have been reclaimed since the last call.
+   *
+   * @return the number of IDs released
+   */
+  public int reclaim() {
+    return reclaim(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Releases the IDs of at most {@code limit} nodes that have been reclaimed
+   * since the last call.
+   *
+   * @return the number of IDs released
+   */
+  public synchronized int reclaim(final int limit) {
+    int reclaimed = 0;
+    Reference<? extends Node> polled;
+    while (reclaimed < limit && (polled = queue.poll()) != null) {
+      final Ref ref = (Ref) polled;
+      final int id = ref.id;
+      if (refs.get(id) != ref) {
+        continue;
+      }
+      if (ref.onReclaim != null) {
+        releasedEntries += ref.onReclaim.getAsInt();
+      }
+
+      refs.set(id, null);
+      generations.incrementAndGet(id);
+      if (freeCount == free.length) {
+        free = Arrays.copyOf(free, 2 * freeCount);
+      }
+      free[freeCount++] = id;
+      --size;
+      ++reclaimed;
+    }
+    reclaimedIds += reclaimed;
+    return reclaimed;
+  }
+
+  /**
+   * The total number of IDs released by this registry.
+   */
+  public synchronized long getReclaimedIds() {
+    return reclaimedIds;
+  }
+
+  /**
+   * The total number of entries released by reclaim callbacks, such as edges
+   * from reclaimed priors.
+   */
+  public synchronized long getReleasedEntries() {
+    return releasedEntries;
+  }
+
+  /**
+   * Gets the node with the given ID, or null if there is no live node with that
+   * ID.
+   */
+  public Node get(final int id) {
+    final AtomicReferenceArray<Ref> refs = this.refs;
+    if (id < 0 || id >= refs.length()) {
+      return null;
+    }
+    final Ref ref = refs.get(id);
+    return ref == null ? null : ref.get();
+  }
+
+  /**
+   * Gets a handle for the node currently registered under {@code id}.
+   */
+  public long handle(final int id) {
+    if (id < 0 || id >= highWater) {
+      throw new IllegalArgumentException(String.format("ID %d has not been assigned.", id));
+    }
+    return (long) generations.get(id) << 32 | id;
+  }
+
+  /**
+   * Gets the last activation time of the node registered under {@code id}, or
+   * {@link #NEVER}.
+   */
+  public long getLastActivation(final int id) {
+    return lastActivations[id >>> COLUMN_SHIFT].get(id & COLUMN_MASK);
+  }
+
+  public void setLastActivation(final int id, final long t) {
+    lastActivations[id >>> COLUMN_SHIFT].set(id & COLUMN_MASK, t);
+  }
+
+  public static int id(final long handle) {
+    return (int) handle;
+  }
+
+  /**
+   * Gets the node referred to by {@code handle}, or null if that node has been
+   * reclaimed, even if its ID has since been reused.
+   */
+  public Node resolve(final long handle) {
+    final int id = id(handle);
+    final Node node = get(id);
+    return node != null && generations.get(id) == (int) (handle >>> 32) ? node : null;
+  }
+
+  /**
+   * The number of IDs currently assigned, including those of nodes that have
+   * been reclaimed but not yet released.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The upper bound (exclusive) of IDs assigned so far, suitable for sizing
+   * arrays indexed by ID.
+   */
+  public int capacity() {
+    return highWater;
+  }
+}
@@ -3,7 +3,7 @@ package ai.xng;
 import java.util.Optional;
 
 public abstract class OutputNode implements Posterior {
-  private final Node.Trait node = new Node.Trait();
+  private final Node.Trait node = new Node.Trait(this);
   private final Posterior.Trait input = new Posterior.Trait(this);
 
   @Override
@@ -18,6 +18,7 @@ public interface Posterior extends Node {
 
   class Trait implements Serializable {
     private final Posterior owner;
+    private final BakingIntegrator.Arithmetic arithmetic;
     @Getter
     private transient ThresholdIntegrator integrator;
     @Getter
@@ -25,12 +26,13 @@ public interface Posterior extends Node {
 
     public Trait(final Posterior owner) {
       this.owner = owner;
+      arithmetic = owner.getCluster().getArithmetic();
       priors = new Connections.Priors(owner);
       init();
     }
 
     private void init() {
-      integrator = new ThresholdIntegrator() {
+      integrator = new ThresholdIntegrator(arithmetic) {
         @Override
         protected void onThreshold() {
           owner.activate();
@@ -48,10 +50,12 @@ public interface Posterior extends Node {
       final float plasticity = owner.getCluster()
           .getPlasticity();
 
-      for (val prior : priors) {
-        // LTP due to STDP
-        prior.edge().distribution.reinforce(prior.node().getTrace().evaluate(now, prior.edge().profile) * plasticity);
-      }
+      // LTP due to STDP. Only recently active priors have a trace to contribute.
+      priors.forEachRecent(now, prior -> {
+        if (!prior.edge().isFrozen()) {
+          prior.edge().reinforce(prior.node().getTrace().evaluate(now, prior.edge().profile) * plasticity);
+        }
+      });
     }
   }
 
@@ -63,7 +67,7 @@ public interface Posterior extends Node {
     }
 
     for (val prior : priors) {
-      prior.getPosteriors().getEdge(this, IntegrationProfile.TRANSIENT).distribution.set(coefficient);
+      prior.getPosteriors().getEdge(this, IntegrationProfile.TRANSIENT).set(coefficient);
     }
 
     return this;
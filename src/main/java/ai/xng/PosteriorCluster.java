@@ -1,6 +1,7 @@
 package ai.xng;
 
 import lombok.Getter;
+import lombok.Setter;
 
 public abstract class PosteriorCluster<T extends Posterior> extends Cluster<T> {
   public static final float DEFAULT_PLASTICITY = .1f;
@@ -8,6 +9,21 @@ public abstract class PosteriorCluster<T extends Posterior> extends Cluster<T> {
   @Getter
   private float plasticity = DEFAULT_PLASTICITY;
 
+  /**
+   * The arithmetic used by the threshold integrators of nodes created in this
+   * cluster. Changing this does not affect existing nodes.
+   */
+  @Getter
+  @Setter
+  private BakingIntegrator.Arithmetic arithmetic = BakingIntegrator.Arithmetic.FLOAT;
+
+  public PosteriorCluster() {
+  }
+
+  public PosteriorCluster(final NodeRegistry registry) {
+    super(registry);
+  }
+
   public void setPlasticity(final float plasticity) {
     if (plasticity < 0 || plasticity > 1) {
       throw new IllegalArgumentException(String.format("Plasticity (%s) must be [0, 1].", plasticity));
@@ -1,6 +1,9 @@
 package ai.xng;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import lombok.Getter;
 import lombok.val;
@@ -12,35 +15,80 @@ public interface Prior extends Node {
   Connections.Posteriors getPosteriors();
 
   class Trait implements Serializable {
+    /**
+     * Priors with at least this many posteriors compute LTD across the common
+     * fork-join pool. Edge activations still run serially, in table order, since
+     * integrators and the scheduler are not thread-safe.
+     */
+    static final int FAN_OUT_DEGREE = 256;
+
     @Getter
     private final Connections.Posteriors posteriors;
 
-    public Trait(final Prior owner) {
-      posteriors = new Connections.Posteriors(owner);
+    public Trait() {
+      posteriors = new Connections.Posteriors();
     }
 
     public void activate() {
       final long now = Scheduler.global.now();
+      final boolean[] reinforced = posteriors.size() >= FAN_OUT_DEGREE ? fanOut(now) : null;
 
       val it = posteriors.iterator();
-      while (it.hasNext()) {
+      for (int i = 0; it.hasNext(); ++i) {
         val posterior = it.next();
-        // LTD due to reverse STDP
-        posterior.edge().distribution
-            .reinforce(-posterior.node().getTrace().evaluate(now, posterior.edge().profile)
-                * posterior.node().getCluster().getPlasticity());
+        if (reinforced == null) {
+          // LTD due to reverse STDP. Posteriors that have not been active within the
+          // profile period have no trace to contribute.
+          if (isPlastic(now, posterior)) {
+            posterior.edge().reinforce(ltd(now, posterior));
+          }
+        } else if (reinforced[i]) {
+          posterior.edge().invalidate();
+        }
 
-        if (posterior.edge().distribution.getWeight() == 0) {
+        if (posterior.edge().getWeight() == 0) {
           it.remove();
         } else {
           posterior.edge().activate();
         }
       }
     }
+
+    private static boolean isPlastic(final long now, final Connections.Entry<Posterior> posterior) {
+      return !posterior.edge().isFrozen() && posterior.node().hasTrace(now, posterior.edge().profile);
+    }
+
+    private static float ltd(final long now, final Connections.Entry<Posterior> posterior) {
+      return -posterior.node().getTrace().evaluate(now, posterior.edge().profile)
+          * posterior.node().getCluster().getPlasticity();
+    }
+
+    /**
+     * Applies LTD to every edge in parallel without touching integrators or the
+     * scheduler. Each edge is only written by its own task, so the result does not
+     * depend on scheduling.
+     *
+     * @return which edges, in iteration order, were reinforced and so need their
+     *         spikes in flight adjusted
+     */
+    private boolean[] fanOut(final long now) {
+      final List<Connections.Entry<Posterior>> entries = new ArrayList<>(posteriors.size());
+      posteriors.forEach(entries::add);
+
+      final boolean[] reinforced = new boolean[entries.size()];
+      IntStream.range(0, entries.size()).parallel().forEach(i -> {
+        val posterior = entries.get(i);
+        if (isPlastic(now, posterior)) {
+          posterior.edge().reinforceDetached(ltd(now, posterior));
+          reinforced[i] = true;
+        }
+      });
+      return reinforced;
+    }
   }
 
   default <T extends Posterior> T then(final T posterior) {
-    getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).distribution.set(DEFAULT_COEFFICIENT);
+    getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).set(DEFAULT_COEFFICIENT);
     return posterior;
   }
 
@@ -51,6 +99,6 @@ public interface Prior extends Node {
   }
 
   default void inhibit(final Posterior posterior) {
-    getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).distribution.set(-1);
+    getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).set(-1);
   }
 }
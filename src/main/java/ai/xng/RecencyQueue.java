@@ -1,135 +1,177 @@
 package ai.xng;
 
-import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.google.common.collect.Iterables;
 
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 /**
  * A linked collection that allows its links to be promoted to head. This
- * collection is not thread-safe.
+ * collection is thread-safe and does not lock.
+ * <p>
+ * Rather than moving a link within the list, promotion pushes a new entry at
+ * head and retires the link's previous entry. Traversal skips retired entries,
+ * which are unlinked in bulk once they outnumber live ones. Only one thread
+ * compacts at a time, but promotions and traversals proceed meanwhile.
+ * <p>
+ * Iteration is weakly consistent. It never throws due to concurrent
+ * modification and yields each link at most once, most recent first, but may
+ * miss links that are promoted or removed while it runs.
  */
 public class RecencyQueue<T> implements Iterable<T> {
+  /**
+   * The number of retired entries tolerated regardless of the number of links.
+   */
+  private static final int MIN_RETIRED = 16;
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<RecencyQueue, Entry> HEAD = AtomicReferenceFieldUpdater
+      .newUpdater(RecencyQueue.class, Entry.class, "head");
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<RecencyQueue.Link, Entry> CURRENT = AtomicReferenceFieldUpdater
+      .newUpdater(RecencyQueue.Link.class, Entry.class, "current");
+
+  private static class Entry<L> {
+    final L link;
+    volatile Entry<L> next;
+    volatile boolean retired;
+
+    Entry(final L link) {
+      this.link = link;
+    }
+  }
+
   @RequiredArgsConstructor
   public class Link {
-    @Getter
-    private Link previous, next;
     private final T value;
+    volatile Entry<Link> current;
 
     public T get() {
       return value;
     }
 
     public void promote() {
-      if (head == this)
+      final Entry<Link> head = RecencyQueue.this.head;
+      if (head != null && head.link == this && current == head)
         return;
 
-      remove();
-
-      next = head;
-      if (head != null) {
-        head.previous = this;
-      }
-      head = this;
-      if (tail == null) {
-        tail = this;
-      }
-
-      version = null;
-    }
-
-    public void remove() {
-      if (next == null && previous == null)
-        return;
+      final Entry<Link> entry = new Entry<>(this);
+      do {
+        entry.next = RecencyQueue.this.head;
+      } while (!HEAD.compareAndSet(RecencyQueue.this, entry.next, entry));
 
+      @SuppressWarnings("unchecked")
+      final Entry<Link> previous = CURRENT.getAndSet(this, entry);
       if (previous == null) {
-        head = next;
+        links.incrementAndGet();
       } else {
-        previous.next = next;
+        retire(previous);
       }
+    }
 
-      if (next == null) {
-        tail = previous;
-      } else {
-        next.previous = previous;
+    public void remove() {
+      @SuppressWarnings("unchecked")
+      final Entry<Link> previous = CURRENT.getAndSet(this, null);
+      if (previous != null) {
+        links.decrementAndGet();
+        retire(previous);
       }
-
-      next = previous = null;
-      version = null;
     }
   }
 
-  private abstract class Iterator implements java.util.Iterator<T> {
-    final Object version;
-    Link prevLink, nextLink;
+  private class Iterator implements java.util.Iterator<T> {
+    Entry<Link> nextEntry = head;
+    Link last;
 
     Iterator() {
-      if (RecencyQueue.this.version == null) {
-        RecencyQueue.this.version = new Object();
+      skipRetired();
+    }
+
+    /**
+     * Advances past entries that are not their link's current entry. This also
+     * skips entries whose promotion is still in flight; their links are still
+     * found at their previous entries.
+     */
+    void skipRetired() {
+      while (nextEntry != null && nextEntry.link.current != nextEntry) {
+        nextEntry = nextEntry.next;
       }
-      version = RecencyQueue.this.version;
     }
 
     @Override
     public boolean hasNext() {
-      return nextLink != null;
+      return nextEntry != null;
     }
 
     @Override
     public T next() {
-      if (version != RecencyQueue.this.version) {
-        throw new ConcurrentModificationException();
-      }
-
       if (!hasNext())
         throw new NoSuchElementException();
 
-      final T nextItem = nextLink.value;
-      prevLink = nextLink;
-      advance();
-      return nextItem;
+      last = nextEntry.link;
+      nextEntry = nextEntry.next;
+      skipRetired();
+      return last.value;
     }
 
-    abstract void advance();
-
     @Override
     public void remove() {
-      prevLink.remove();
-      RecencyQueue.this.version = version;
+      if (last == null)
+        throw new IllegalStateException();
+
+      last.remove();
+      last = null;
     }
   }
 
-  private Link head, tail;
-  private Object version;
+  private volatile Entry<Link> head;
+  private final AtomicInteger links = new AtomicInteger(), retired = new AtomicInteger();
+  private final AtomicBoolean compacting = new AtomicBoolean();
 
-  @Override
-  public java.util.Iterator<T> iterator() {
-    return new Iterator() {
-      {
-        nextLink = head;
-      }
-
-      @Override
-      void advance() {
-        nextLink = nextLink.next;
-      }
-    };
+  private void retire(final Entry<Link> entry) {
+    entry.retired = true;
+    if (retired.incrementAndGet() > Math.max(MIN_RETIRED, links.get())) {
+      compact();
+    }
   }
 
-  public java.util.Iterator<T> reverseIterator() {
-    return new Iterator() {
-      {
-        nextLink = tail;
-      }
+  /**
+   * Unlinks retired entries behind head. Entries are only unlinked here, and
+   * only by one thread at a time, while promotion only replaces head, so
+   * compaction never races with other writes to {@link Entry#next}. Iterators
+   * standing on an unlinked entry still reach the rest of the list through it.
+   */
+  private void compact() {
+    if (!compacting.compareAndSet(false, true))
+      return;
+
+    try {
+      Entry<Link> previous = head;
+      if (previous == null)
+        return;
 
-      @Override
-      void advance() {
-        nextLink = nextLink.previous;
+      int unlinked = 0;
+      for (Entry<Link> entry = previous.next; entry != null; entry = entry.next) {
+        if (entry.retired) {
+          previous.next = entry.next;
+          ++unlinked;
+        } else {
+          previous = entry;
+        }
       }
-    };
+      retired.addAndGet(-unlinked);
+    } finally {
+      compacting.set(false);
+    }
+  }
+
+  @Override
+  public java.util.Iterator<T> iterator() {
+    return new Iterator();
   }
 
   @Override
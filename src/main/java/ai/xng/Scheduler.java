@@ -3,16 +3,50 @@ package ai.xng;
 import java.util.concurrent.Executors;
 
 import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
 
 public abstract class Scheduler {
   public static Scheduler global = new FlexTimeScheduler(Executors.newSingleThreadExecutor());
 
+  /**
+   * A task that can be scheduled repeatedly. At most one execution is pending at
+   * a time; scheduling a task that is already pending moves its deadline rather
+   * than posting another execution.
+   */
+  public interface ReusableTask {
+    void schedule(long deadline);
+
+    void cancel();
+  }
+
   public abstract long now();
 
   public abstract Disposable postTask(Runnable task);
 
   public abstract Disposable postTask(Runnable task, long time);
 
+  /**
+   * Creates a reusable task. The default implementation disposes and posts a new
+   * task on every reschedule. Implementations should override this to reschedule
+   * in place.
+   */
+  public ReusableTask newTask(final Runnable run) {
+    return new ReusableTask() {
+      Disposable pending = Disposables.disposed();
+
+      @Override
+      public void schedule(final long deadline) {
+        pending.dispose();
+        pending = postTask(run, deadline);
+      }
+
+      @Override
+      public void cancel() {
+        pending.dispose();
+      }
+    };
+  }
+
   public abstract void fastForwardUntilIdle();
 
   public abstract void fastForwardUntil(final long t);
@@ -20,4 +54,4 @@ public abstract class Scheduler {
   public void fastForwardFor(final long dt) {
     fastForwardUntil(now() + dt);
   }
-}
\ No newline at end of file
+}
@@ -1,6 +1,13 @@
 package ai.xng;
 
 public class SignalCluster extends PosteriorCluster<SignalCluster.Node> {
+  public SignalCluster() {
+  }
+
+  public SignalCluster(final NodeRegistry registry) {
+    super(registry);
+  }
+
   public class Node extends OutputNode {
     private final Link link;
 
@@ -8,6 +15,11 @@ public class SignalCluster extends PosteriorCluster<SignalCluster.Node> {
       link = new Link(this);
     }
 
+    @Override
+    public int getId() {
+      return link.getId();
+    }
+
     @Override
     public SignalCluster getCluster() {
       return SignalCluster.this;
@@ -9,4 +9,8 @@ public class StmCluster extends BiCluster {
   public StmCluster(final String comment) {
     super(comment);
   }
+
+  public StmCluster(final NodeRegistry registry, final String comment) {
+    super(registry, comment);
+  }
 }
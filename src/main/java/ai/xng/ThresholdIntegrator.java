@@ -3,8 +3,6 @@ package ai.xng;
 import java.util.Optional;
 
 import ai.xng.BakingIntegrator.Segment;
-import ai.xng.util.TimeSeries;
-import io.reactivex.disposables.Disposable;
 import lombok.val;
 
 public abstract class ThresholdIntegrator {
@@ -15,8 +13,8 @@ public abstract class ThresholdIntegrator {
 
     private Spike(final IntegrationProfile profile, final float magnitude) {
       final long now = Scheduler.global.now();
-      rampUp = new Segment(now + profile.delay(), now + profile.peak(), 0, magnitude / profile.rampUp());
-      rampDown = new Segment(rampUp.t1, now + profile.period(), magnitude, -magnitude / profile.rampDown());
+      rampUp = integrator.add(now + profile.delay(), now + profile.peak(), 0, magnitude);
+      rampDown = integrator.add(rampUp.t1, now + profile.period(), magnitude, 0);
     }
 
     /**
@@ -28,11 +26,11 @@ public abstract class ThresholdIntegrator {
       final long now = Scheduler.global.now();
       if (now < rampUp.t1) {
         if (now > rampUp.t0) {
-          rampUp.v0 = rampUp.evaluate(now);
+          rampUp.rebase(now, newRate);
+        } else {
+          rampUp.setRate(newRate);
         }
-        rampUp.rate = newRate;
-        rampDown.v0 = rampUp.evaluate(rampUp.t1);
-        rampDown.rate = -rampDown.v0 / rampDown.duration();
+        rampDown.descendFrom(rampUp);
         invalidate();
       }
     }
@@ -42,22 +40,34 @@ public abstract class ThresholdIntegrator {
     }
   }
 
-  private final BakingIntegrator integrator = new BakingIntegrator();
+  private final BakingIntegrator integrator;
 
-  private TimeSeries<Disposable> nextThreshold;
+  // The next threshold stays set while its task is executing so that updates
+  // during the threshold callback defer to the task's own reschedule.
+  private long nextThreshold = BakingIntegrator.NEVER;
+  private Scheduler taskScheduler;
+  private Scheduler.ReusableTask task;
+
+  protected ThresholdIntegrator() {
+    this(BakingIntegrator.Arithmetic.FLOAT);
+  }
+
+  protected ThresholdIntegrator(final BakingIntegrator.Arithmetic arithmetic) {
+    integrator = new BakingIntegrator(arithmetic);
+  }
 
   /**
    * Gets the timestamp of the currently scheduled next threshold.
    */
   public Optional<Long> nextThreshold() {
-    return Optional.ofNullable(nextThreshold).map(TimeSeries::time);
+    return nextThreshold == BakingIntegrator.NEVER ? Optional.empty() : Optional.of(nextThreshold);
   }
 
   /**
    * Returns whether there is currently a due threshold processing task scheduled.
    */
   public boolean isPending() {
-    return nextThreshold().map(t -> t <= Scheduler.global.now()).orElse(false);
+    return nextThreshold != BakingIntegrator.NEVER && nextThreshold <= Scheduler.global.now();
   }
 
   private float getValue() {
@@ -74,49 +84,25 @@ public abstract class ThresholdIntegrator {
   public Spike add(final IntegrationProfile profile, final float magnitude) {
     evict();
     val spike = new Spike(profile, magnitude);
-    integrator.add(spike.rampUp);
-    integrator.add(spike.rampDown);
     invalidate();
     return spike;
   }
 
   private void invalidate() {
-    val now = Scheduler.global.now();
-    if (nextThreshold != null && nextThreshold.time() == now) {
+    final long now = Scheduler.global.now();
+    if (nextThreshold == now) {
       return;
     }
 
-    final Optional<Long> updatedNextThreshold = nextThreshold(now);
-    if (nextThreshold == null || updatedNextThreshold.map(t -> t != nextThreshold.time())
-        .orElse(true)) {
-      if (nextThreshold != null) {
-        nextThreshold.value().dispose();
-      }
+    final long updatedNextThreshold = integrator.nextIntercept(now, THRESHOLD);
+    if (updatedNextThreshold != nextThreshold) {
       schedule(updatedNextThreshold);
     }
   }
 
-  public Optional<Long> nextThreshold(long t) {
-    while (true) {
-      val trajectory = integrator.evaluate(t);
-      val nextCriticalPoint = integrator.nextCriticalPoint(t);
-
-      if (trajectory.value() < THRESHOLD) {
-        if (trajectory.rate() > 0) {
-          final long intercept = t + (long) Math.ceil((THRESHOLD - trajectory.value()) / trajectory.rate());
-          if (nextCriticalPoint.map(tc -> intercept <= tc)
-              .orElse(true)) {
-            return Optional.of(intercept);
-          }
-        }
-      }
-
-      if (nextCriticalPoint.isEmpty())
-        break;
-      t = nextCriticalPoint.get();
-    }
-
-    return Optional.empty();
+  public Optional<Long> nextThreshold(final long t) {
+    final long next = integrator.nextIntercept(t, THRESHOLD);
+    return next == BakingIntegrator.NEVER ? Optional.empty() : Optional.of(next);
   }
 
   public boolean isActive() {
@@ -127,13 +113,34 @@ public abstract class ThresholdIntegrator {
     integrator.evict(Scheduler.global.now());
   }
 
-  private void schedule(final Optional<Long> tOpt) {
-    nextThreshold = tOpt.map(t -> new TimeSeries<Disposable>(Scheduler.global.postTask(() -> {
-      onThreshold();
-      evict();
-      schedule(nextThreshold(Scheduler.global.now()));
-    }, t), t))
-        .orElse(null);
+  private void onThresholdTask() {
+    onThreshold();
+    evict();
+    schedule(integrator.nextIntercept(Scheduler.global.now(), THRESHOLD));
+  }
+
+  /**
+   * Moves the threshold task to {@code t}, or cancels it if {@code t} is
+   * {@link BakingIntegrator#NEVER}. The task is created once per scheduler and
+   * then rescheduled in place.
+   */
+  private void schedule(final long t) {
+    nextThreshold = t;
+    if (t == BakingIntegrator.NEVER) {
+      if (task != null) {
+        task.cancel();
+      }
+      return;
+    }
+
+    if (taskScheduler != Scheduler.global) {
+      if (task != null) {
+        task.cancel();
+      }
+      taskScheduler = Scheduler.global;
+      task = taskScheduler.newTask(this::onThresholdTask);
+    }
+    task.schedule(t);
   }
 
   @Override
@@ -1,8 +1,8 @@
 package ai.xng;
 
 import java.io.Serializable;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A hypothetical unimodal distribution. This distribution keeps track of
@@ -16,59 +16,99 @@ public class UnimodalHypothesis implements Distribution, Serializable {
    * Spread basis with no evidence.
    */
   private static final float DEFAULT_SPREAD_BASIS = .2f;
-  private static final float CRITICAL_SUPPORT = .5f;
+  static final float CRITICAL_SUPPORT = .5f;
 
-  private static class Bucket implements Serializable {
-    float mean, weight;
+  // The three buckets (lower tail, core and upper tail) are packed into plain
+  // fields rather than objects. Writers are serialized by a seqlock so that
+  // readers never block and never observe a torn update.
+  private float lowerMean, lowerWeight, coreMean, coreWeight, upperMean, upperWeight;
 
-    float distributeWeight(final float delta, final float min) {
-      final float naive = weight + delta;
-      if (naive >= min) {
-        weight = naive;
-        return 0;
-      } else {
-        weight = min;
-        return naive - min;
-      }
+  private transient volatile int sequence;
+  private static final AtomicIntegerFieldUpdater<UnimodalHypothesis> SEQUENCE = AtomicIntegerFieldUpdater
+      .newUpdater(UnimodalHypothesis.class, "sequence");
+
+  private void beginWrite() {
+    int s;
+    while (((s = sequence) & 1) != 0 || !SEQUENCE.compareAndSet(this, s, s + 1)) {
+      Thread.onSpinWait();
     }
   }
 
-  private final Bucket lower = new Bucket(), core = new Bucket(), upper = new Bucket();
-  private final ReadWriteLock lock = new ReentrantReadWriteLock(false);
+  private void endWrite() {
+    SEQUENCE.incrementAndGet(this);
+  }
+
+  private int beginRead() {
+    int s;
+    while (((s = sequence) & 1) != 0) {
+      Thread.onSpinWait();
+    }
+    return s;
+  }
+
+  private boolean validate(final int s) {
+    VarHandle.acquireFence();
+    return sequence == s;
+  }
 
   @Override
   public void scale(final float factor) {
-    lock.writeLock().lock();
+    beginWrite();
     try {
-      lower.mean *= factor;
-      core.mean *= factor;
-      upper.mean *= factor;
+      lowerMean *= factor;
+      coreMean *= factor;
+      upperMean *= factor;
     } finally {
-      lock.writeLock().unlock();
+      endWrite();
     }
   }
 
   @Override
   public String toString() {
-    lock.readLock().lock();
-    try {
-      return String.format(
-          "μ = %.4g, w = %.2f (left tail: μ = %.4g, w = %.2f; core: μ = %.4g, w = %.2f; right tail: μ = %.4g, w = %.2f)",
-          getMode(), getWeight(), lower.mean, lower.weight, core.mean, core.weight, upper.mean, upper.weight);
-    } finally {
-      lock.readLock().unlock();
-    }
+    String description;
+    int s;
+    do {
+      s = beginRead();
+      description = describe();
+    } while (!validate(s));
+    return description;
+  }
+
+  private String describe() {
+    return String.format(
+        "μ = %.4g, w = %.2f (left tail: μ = %.4g, w = %.2f; core: μ = %.4g, w = %.2f; right tail: μ = %.4g, w = %.2f)",
+        mode(), weight(), lowerMean, lowerWeight, coreMean, coreWeight, upperMean, upperWeight);
+  }
+
+  private float mode() {
+    return (lowerMean * lowerWeight + coreMean * coreWeight + upperMean * upperWeight)
+        / Math.max(weight(), CRITICAL_SUPPORT);
+  }
+
+  private float weight() {
+    return lowerWeight + coreWeight + upperWeight;
   }
 
   @Override
   public float getMode() {
-    return (lower.mean * lower.weight + core.mean * core.weight + upper.mean * upper.weight)
-        / Math.max(getWeight(), CRITICAL_SUPPORT);
+    float mode;
+    int s;
+    do {
+      s = beginRead();
+      mode = mode();
+    } while (!validate(s));
+    return mode;
   }
 
   @Override
   public float getWeight() {
-    return lower.weight + core.weight + upper.weight;
+    float weight;
+    int s;
+    do {
+      s = beginRead();
+      weight = weight();
+    } while (!validate(s));
+    return weight;
   }
 
   public UnimodalHypothesis() {
@@ -89,11 +129,16 @@ public class UnimodalHypothesis implements Distribution, Serializable {
       throw new IllegalArgumentException("weight must be non-negative");
     }
 
-    core.mean = value;
-    lower.mean = core.mean - DEFAULT_SPREAD_BASIS;
-    upper.mean = core.mean + DEFAULT_SPREAD_BASIS;
-    core.weight = weight;
-    lower.weight = upper.weight = 0;
+    beginWrite();
+    try {
+      coreMean = value;
+      lowerMean = coreMean - DEFAULT_SPREAD_BASIS;
+      upperMean = coreMean + DEFAULT_SPREAD_BASIS;
+      coreWeight = weight;
+      lowerWeight = upperWeight = 0;
+    } finally {
+      endWrite();
+    }
   }
 
   private static float weightedAverage(final float valueA, final float weightA, final float valueB,
@@ -106,25 +151,21 @@ public class UnimodalHypothesis implements Distribution, Serializable {
     if (weight == 0)
       return;
 
-    lock.writeLock().lock();
+    beginWrite();
     try {
-      final Bucket tail, counterTail;
-      if (value < core.mean) {
-        tail = lower;
-        counterTail = upper;
-      } else {
-        tail = upper;
-        counterTail = lower;
-      }
+      // Work on the tail on the side of the sample and the counter-tail opposite it.
+      final boolean lowerTail = value < coreMean;
+      float tailMean = lowerTail ? lowerMean : upperMean, tailWeight = lowerTail ? lowerWeight : upperWeight;
+      float counterTailWeight = lowerTail ? upperWeight : lowerWeight;
 
-      float ndev = tail.mean == core.mean ? 0 : Math.min((value - core.mean) / (tail.mean - core.mean), 1);
+      float ndev = tailMean == coreMean ? 0 : Math.min((value - coreMean) / (tailMean - coreMean), 1);
 
       // Normally, if an incoming positive-weighted sample deviates far from the core,
       // it is considered a counterexample and may decrease overall weight. However,
       // as the incumbent weight falls below critical support and approaches 0, this
       // behavior is pathological; weights should tend towards summation and means
       // should tend toward a weighted average.
-      final float oldWeight = getWeight();
+      final float oldWeight = weight();
       if (oldWeight < CRITICAL_SUPPORT) {
         ndev *= oldWeight / CRITICAL_SUPPORT;
       }
@@ -132,66 +173,119 @@ public class UnimodalHypothesis implements Distribution, Serializable {
       final float tailWeightChange = ndev * weight;
 
       if (tailWeightChange > 0) {
-        tail.mean = weightedAverage(tail.mean, tail.weight, value, tailWeightChange);
+        tailMean = weightedAverage(tailMean, tailWeight, value, tailWeightChange);
       }
-      tail.weight = Math.max(0, tail.weight + tailWeightChange);
+      tailWeight = Math.max(0, tailWeight + tailWeightChange);
 
       final float coreWeightChange = weight - 2 * tailWeightChange;
       if (weight > 0 && coreWeightChange > 0) {
-        core.mean = weightedAverage(core.mean, core.weight, value, coreWeightChange);
+        coreMean = weightedAverage(coreMean, coreWeight, value, coreWeightChange);
       }
 
+      // Each step moves weight into a bucket, flooring it at zero and carrying any
+      // deficit to the next bucket.
       if (weight > 0) {
-        float weightToDistribute = core.distributeWeight(coreWeightChange, 0);
-        weightToDistribute = counterTail.distributeWeight(weightToDistribute, 0);
+        float weightToDistribute = coreWeight + coreWeightChange;
+        if (weightToDistribute >= 0) {
+          coreWeight = weightToDistribute;
+          weightToDistribute = 0;
+        } else {
+          coreWeight = 0;
+        }
+        weightToDistribute += counterTailWeight;
+        if (weightToDistribute >= 0) {
+          counterTailWeight = weightToDistribute;
+          weightToDistribute = 0;
+        } else {
+          counterTailWeight = 0;
+        }
         if (weightToDistribute < 0) {
-          tail.distributeWeight(-weightToDistribute, 0);
+          tailWeight -= weightToDistribute;
         }
       } else if (coreWeightChange < 0) {
-        float weightToDistribute = core.distributeWeight(coreWeightChange, 0);
-        weightToDistribute = tail.distributeWeight(weightToDistribute, 0);
-        counterTail.distributeWeight(weightToDistribute, 0);
+        float weightToDistribute = coreWeight + coreWeightChange;
+        if (weightToDistribute >= 0) {
+          coreWeight = weightToDistribute;
+          weightToDistribute = 0;
+        } else {
+          coreWeight = 0;
+        }
+        weightToDistribute += tailWeight;
+        if (weightToDistribute >= 0) {
+          tailWeight = weightToDistribute;
+          weightToDistribute = 0;
+        } else {
+          tailWeight = 0;
+        }
+        weightToDistribute += counterTailWeight;
+        counterTailWeight = weightToDistribute >= 0 ? weightToDistribute : 0;
+      }
+
+      if (lowerTail) {
+        lowerMean = tailMean;
+        lowerWeight = tailWeight;
+        upperWeight = counterTailWeight;
+      } else {
+        upperMean = tailMean;
+        upperWeight = tailWeight;
+        lowerWeight = counterTailWeight;
       }
 
-      if (core.weight == 0 && (lower.weight > 0 || upper.weight > 0)) {
-        core.mean = weightedAverage(lower.mean, lower.weight, upper.mean, upper.weight);
+      if (coreWeight == 0 && (lowerWeight > 0 || upperWeight > 0)) {
+        coreMean = weightedAverage(lowerMean, lowerWeight, upperMean, upperWeight);
       }
 
-      if (core.mean <= lower.mean) {
-        core.weight += lower.weight;
-        lower.weight = 0;
+      if (coreMean <= lowerMean) {
+        coreWeight += lowerWeight;
+        lowerWeight = 0;
       }
-      if (core.mean >= upper.mean) {
-        core.weight += upper.weight;
-        upper.weight = 0;
+      if (coreMean >= upperMean) {
+        coreWeight += upperWeight;
+        upperWeight = 0;
       }
 
-      if (lower.weight == 0) {
-        lower.mean = core.mean - DEFAULT_SPREAD_BASIS;
+      if (lowerWeight == 0) {
+        lowerMean = coreMean - DEFAULT_SPREAD_BASIS;
       }
-      if (upper.weight == 0) {
-        upper.mean = core.mean + DEFAULT_SPREAD_BASIS;
+      if (upperWeight == 0) {
+        upperMean = coreMean + DEFAULT_SPREAD_BASIS;
       }
 
-      assert core.mean > lower.mean && core.mean < upper.mean
-          : String.format("%+.4g x %.2f to %s", value, weight, this);
+      assert coreMean > lowerMean && coreMean < upperMean
+          : String.format("%+.4g x %.2f to %s", value, weight, describe());
     } finally {
-      lock.writeLock().unlock();
+      endWrite();
     }
   }
 
   @Override
   public float getMin() {
-    return core.mean;
+    return coreMean;
   }
 
   @Override
   public float getMax() {
-    return core.mean;
+    return coreMean;
   }
 
   @Override
   public float generate() {
     return getMode();
   }
+
+  /**
+   * Gets the frozen form of this distribution, or null if it has tails.
+   */
+  public FrozenDistribution freeze() {
+    float value, weight;
+    boolean hasTails;
+    int s;
+    do {
+      s = beginRead();
+      value = coreMean;
+      weight = coreWeight;
+      hasTails = lowerWeight > 0 || upperWeight > 0;
+    } while (!validate(s));
+    return hasTails ? null : FrozenDistribution.of(value, weight);
+  }
 }
\ No newline at end of file
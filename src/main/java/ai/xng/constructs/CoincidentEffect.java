@@ -80,20 +80,14 @@ public abstract class CoincidentEffect<T extends Posterior> implements Serializa
   protected abstract void apply(T node);
 
   private void applyPending() {
-    for (val recent : cluster.activations()) {
-      if (recent.getIntegrator().isPending()) {
-        // This case will be handled by the subscription.
-        continue;
-      }
-      if (recent.getLastActivation().get() < Scheduler.global.now() - IntegrationProfile.PERSISTENT.period()) {
-        // This assumes that PERSISTENT is an upper bound on integration curve periods.
-        break;
-      }
-
-      if (recent.getIntegrator().isActive()) {
-        apply(recent);
-      }
-    }
+    // This assumes that PERSISTENT is an upper bound on integration curve periods.
+    cluster.forEachActivatedBetween(Scheduler.global.now() - IntegrationProfile.PERSISTENT.period(), Long.MAX_VALUE,
+        recent -> {
+          // Pending nodes will be handled by the subscription.
+          if (!recent.getIntegrator().isPending() && recent.getIntegrator().isActive()) {
+            apply(recent);
+          }
+        });
   }
 
   /**
@@ -3,6 +3,7 @@ package ai.xng.ifc;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
 
 import ai.xng.KnowledgeBase;
 import ai.xng.LanguageBootstrap;
@@ -13,6 +14,11 @@ import lombok.val;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public final class Console {
+  /**
+   * Time spent on graph maintenance between inputs.
+   */
+  private static final long MAINTENANCE_BUDGET = TimeUnit.MILLISECONDS.toNanos(10);
+
   public static void main(String[] mainArgs) throws ClassNotFoundException,
       ClassCastException, IOException {
     // val persistence = new
@@ -29,6 +35,8 @@ public final class Console {
 
         kb.inputValue.setData(input);
         Scheduler.global.fastForwardUntilIdle();
+        kb.pruner.prune(MAINTENANCE_BUDGET);
+        kb.collector.collect(MAINTENANCE_BUDGET);
         System.out.println();
       }
     }
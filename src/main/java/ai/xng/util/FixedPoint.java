@@ -0,0 +1,37 @@
+package ai.xng.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Signed 32.32 fixed-point helpers. Conversions go through {@code double},
+ * whose rounding is fully specified, so results are identical on every
+ * platform.
+ */
+@UtilityClass
+public final class FixedPoint {
+  public final int FRACTION_BITS = 32;
+  public final long ONE = 1L << FRACTION_BITS;
+
+  public long fromFloat(final float value) {
+    return Math.round((double) value * ONE);
+  }
+
+  public float toFloat(final long value) {
+    return (float) ((double) value / ONE);
+  }
+
+  /**
+   * Integer division rounding to the nearest integer, with ties towards positive
+   * infinity. The divisor must be positive.
+   */
+  public long roundDiv(final long dividend, final long divisor) {
+    return Math.floorDiv(dividend + divisor / 2, divisor);
+  }
+
+  /**
+   * Integer division rounding towards positive infinity.
+   */
+  public long ceilDiv(final long dividend, final long divisor) {
+    return -Math.floorDiv(-dividend, divisor);
+  }
+}
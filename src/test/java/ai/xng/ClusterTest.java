@@ -3,6 +3,7 @@ package ai.xng;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import org.junit.jupiter.api.Test;
 
@@ -26,6 +27,94 @@ public class ClusterTest {
     assertThat(cluster.activations()).containsExactly(c, b, a);
   }
 
+  @Test
+  public void testActivatedBetween() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+    val cluster = new InputCluster();
+    val a = cluster.new Node(), b = cluster.new Node(), c = cluster.new Node();
+    a.activate();
+    scheduler.fastForwardFor(100);
+    b.activate();
+    c.activate();
+    scheduler.fastForwardFor(100);
+    a.activate();
+
+    val window = new ArrayList<InputCluster.Node>();
+    cluster.forEachActivatedBetween(50, 150, window::add);
+    assertThat(window).containsExactly(c, b);
+
+    window.clear();
+    cluster.forEachActivatedBetween(0, Long.MAX_VALUE, window::add);
+    assertThat(window).containsExactly(a, c, b);
+
+    // Windows older than the index fall back to the recency queue.
+    scheduler.fastForwardFor(2 * Node.TRACE_SAMPLE_TTL);
+    c.activate();
+    window.clear();
+    cluster.forEachActivatedBetween(50, 150, window::add);
+    assertThat(window).containsExactly(b);
+  }
+
+  @Test
+  public void testActivatedBetweenAfterClockReset() {
+    val before = new TestScheduler();
+    Scheduler.global = before;
+    val cluster = new InputCluster();
+    val a = cluster.new Node(), b = cluster.new Node();
+    before.fastForwardFor(200);
+    a.activate();
+
+    val after = new TestScheduler();
+    Scheduler.global = after;
+    after.fastForwardFor(100);
+    a.activate();
+    b.activate();
+
+    val window = new ArrayList<InputCluster.Node>();
+    cluster.forEachActivatedBetween(50, 150, window::add);
+    assertThat(window).containsExactly(b, a);
+
+    window.clear();
+    cluster.forEachActivatedBetween(150, 250, window::add);
+    assertThat(window).isEmpty();
+  }
+
+  @Test
+  public void testCollectedActivationsPurged() throws Exception {
+    val cluster = new InputCluster();
+    for (int i = 0; i < 3; ++i) {
+      cluster.new Node().activate();
+    }
+    val survivor = cluster.new Node();
+    survivor.activate();
+
+    GcFixture.collectUntil(() -> cluster.getPurgedCount() >= 3, cluster::clean);
+    assertThat(cluster.getPurgedCount()).isEqualTo(3);
+    assertThat(cluster.activations()).containsExactly(survivor);
+  }
+
+  @Test
+  public void testScheduledClean() throws Exception {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+    val cluster = new InputCluster();
+    for (int i = 0; i < 3; ++i) {
+      cluster.new Node().activate();
+    }
+    val survivor = cluster.new Node();
+    survivor.activate();
+    scheduler.fastForwardUntilIdle();
+
+    GcFixture.collectUntil(() -> cluster.getPurgedCount() + cluster.getCleanedCount() >= 3, () -> {
+      scheduler.fastForwardFor(Cluster.CLEAN_INTERVAL);
+      survivor.activate();
+      scheduler.fastForwardUntilIdle();
+    });
+    assertThat(cluster.getPurgedCount() + cluster.getCleanedCount()).isEqualTo(3);
+    assertThat(cluster.activations()).containsExactly(survivor);
+  }
+
   private static class SingleNodeCluster implements Serializable {
     final InputCluster cluster = new InputCluster();
     final InputCluster.Node node = cluster.new Node();
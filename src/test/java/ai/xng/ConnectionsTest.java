@@ -0,0 +1,300 @@
+package ai.xng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
+
+public class ConnectionsTest {
+  @Test
+  public void testConnectionSerialization() throws Exception {
+    val input = new InputCluster();
+    val output = new ActionCluster();
+    val prior = input.new Node();
+    for (int i = 0; i < 100; ++i) {
+      prior.then(output.new Node(() -> {
+      }));
+    }
+
+    val deserialized = TestUtil.serialize(prior);
+    assertThat(deserialized.getPosteriors()).hasSize(100);
+    for (val entry : deserialized.getPosteriors()) {
+      assertThat(entry.node().getPriors())
+          .containsExactly(new Connections.Entry<>(deserialized, entry.edge()));
+      assertThat(deserialized.getPosteriors().getEdge(entry.node(), IntegrationProfile.TRANSIENT))
+          .isSameAs(entry.edge());
+    }
+  }
+
+  @Test
+  public void testEdgeRemoval() {
+    val input = new InputCluster();
+    val output = new ActionCluster();
+    val prior = input.new Node();
+    val posteriors = new ActionCluster.Node[100];
+    for (int i = 0; i < posteriors.length; ++i) {
+      posteriors[i] = prior.then(output.new Node(() -> {
+      }));
+    }
+    val removed = ImmutableSet.copyOf(Arrays.copyOf(posteriors, 50));
+
+    val it = prior.getPosteriors().iterator();
+    while (it.hasNext()) {
+      if (removed.contains(it.next().node())) {
+        it.remove();
+      }
+    }
+
+    assertThat(prior.getPosteriors()).hasSize(50);
+    for (val posterior : posteriors) {
+      assertThat(posterior.getPriors()).hasSize(removed.contains(posterior) ? 0 : 1);
+    }
+  }
+
+  @Test
+  public void testPriorsFromCluster() {
+    val a = new InputCluster(), b = new InputCluster();
+    val posterior = new ActionCluster().new Node(() -> {
+    });
+    val fromA = a.new Node(), fromB = b.new Node();
+    fromA.then(posterior);
+    fromB.then(posterior);
+    fromB.getPosteriors().getEdge(posterior, IntegrationProfile.PERSISTENT).set(1);
+
+    assertThat(posterior.getPriors().from(a)).extracting(Connections.Entry::node).containsExactly(fromA);
+    assertThat(posterior.getPriors().from(b)).hasSize(2);
+    assertThat(posterior.getPriors().from(b, IntegrationProfile.PERSISTENT))
+        .extracting(Connections.Entry::node).containsExactly(fromB);
+    assertThat(posterior.getPriors()).hasSize(3);
+  }
+
+  @Test
+  public void testLazyScale() throws Exception {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val prior = new InputCluster().new Node();
+    val output = new ActionCluster();
+    val early = prior.then(output.new Node(() -> {
+    }));
+    prior.activate();
+    scheduler.fastForwardFor(IntegrationProfile.TRANSIENT.peak());
+
+    for (int i = 0; i < 20; ++i) {
+      prior.getPosteriors().scale(.5f);
+      prior.getPosteriors().scale(2);
+    }
+    prior.getPosteriors().scale(.5f);
+    val late = prior.then(output.new Node(() -> {
+    }));
+    prior.getPosteriors().scale(.5f);
+
+    assertThat(prior.getPosteriors().getEdge(early, IntegrationProfile.TRANSIENT).getMode())
+        .isEqualTo(Prior.DEFAULT_COEFFICIENT / 4);
+    assertThat(prior.getPosteriors().getEdge(late, IntegrationProfile.TRANSIENT).getMode())
+        .isEqualTo(Prior.DEFAULT_COEFFICIENT / 2);
+
+    prior.getPosteriors().scale(2);
+    val deserialized = TestUtil.serialize(prior);
+    for (val entry : deserialized.getPosteriors()) {
+      assertThat(entry.edge().getMode()).isIn(Prior.DEFAULT_COEFFICIENT / 2, Prior.DEFAULT_COEFFICIENT);
+    }
+  }
+
+  @Test
+  public void testConcurrentCatchUp() {
+    Scheduler.global = new TestScheduler();
+
+    val prior = new InputCluster().new Node();
+    val output = new ActionCluster();
+    val edges = new Connections.Edge[16];
+    for (int i = 0; i < edges.length; ++i) {
+      val posterior = prior.then(output.new Node(() -> {
+      }));
+      edges[i] = prior.getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT);
+    }
+
+    for (int round = 1; round <= 20; ++round) {
+      prior.getPosteriors().scale(round % 2 == 0 ? 2 : .5f);
+      final float expected = round % 2 == 0 ? Prior.DEFAULT_COEFFICIENT : Prior.DEFAULT_COEFFICIENT / 2;
+      IntStream.range(0, 64 * edges.length).parallel()
+          .forEach(i -> assertThat(edges[i % edges.length].getMode()).isEqualTo(expected));
+    }
+  }
+
+  @Test
+  public void testLazyAttenuate() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val prior = new InputCluster().new Node();
+    val output = new ActionCluster();
+    val cleared = prior.then(output.new Node(() -> {
+    }));
+    prior.activate();
+    scheduler.fastForwardFor(IntegrationProfile.TRANSIENT.period());
+
+    prior.getPosteriors().attenuate(1);
+    val halved = prior.then(output.new Node(() -> {
+    }));
+    prior.getPosteriors().scale(2);
+    prior.getPosteriors().attenuate(.5f);
+
+    assertThat(prior.getPosteriors().getEdge(halved, IntegrationProfile.TRANSIENT).getWeight()).isEqualTo(.5f);
+    assertThat(prior.getPosteriors().getEdge(halved, IntegrationProfile.TRANSIENT).getMode())
+        .isEqualTo(2 * Prior.DEFAULT_COEFFICIENT);
+
+    prior.activate();
+    assertThat(prior.getPosteriors()).extracting(Connections.Entry::node).containsExactly(halved);
+    assertThat(cleared.getPriors()).isEmpty();
+  }
+
+  @Test
+  public void testConcurrentAttenuate() {
+    Scheduler.global = new TestScheduler();
+
+    val input = new InputCluster();
+    val output = new ActionCluster();
+    val prior = input.new Node();
+    val edges = new Connections.Edge[16];
+    for (int i = 0; i < edges.length; ++i) {
+      val posterior = prior.then(output.new Node(() -> {
+      }));
+      edges[i] = prior.getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT);
+    }
+    val control = input.new Node();
+    val controlPosterior = control.then(output.new Node(() -> {
+    }));
+    val controlEdge = control.getPosteriors().getEdge(controlPosterior, IntegrationProfile.TRANSIENT);
+
+    for (int round = 0; round < 10; ++round) {
+      // Reading concurrently with further attenuation must not apply any of it
+      // twice.
+      prior.getPosteriors().attenuate(.5f);
+      IntStream.range(0, 64 * edges.length).parallel().forEach(i -> {
+        if (i == edges.length) {
+          prior.getPosteriors().attenuate(.5f);
+        }
+        edges[i % edges.length].getWeight();
+      });
+      control.getPosteriors().attenuate(.5f);
+      control.getPosteriors().attenuate(.5f);
+
+      for (val edge : edges) {
+        assertThat(edge.getWeight()).isEqualTo(controlEdge.getWeight());
+      }
+    }
+  }
+
+  @Test
+  public void testFreeze() throws Exception {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val prior = new InputCluster().new Node();
+    val posterior = prior.then(new ActionCluster().new Node(() -> {
+    }));
+    prior.getPosteriors().freeze();
+    val edge = prior.getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT);
+    assertTrue(edge.isFrozen());
+
+    posterior.activate();
+    scheduler.fastForwardFor(1);
+    prior.activate();
+    assertThat(edge.getWeight()).isEqualTo(1);
+
+    edge.scale(.5f);
+    assertTrue(edge.isFrozen());
+    assertThat(edge.getMode()).isEqualTo(Prior.DEFAULT_COEFFICIENT / 2);
+
+    val deserialized = TestUtil.serialize(prior);
+    assertTrue(deserialized.getPosteriors().iterator().next().edge().isFrozen());
+
+    edge.reinforce(1);
+    assertFalse(edge.isFrozen());
+    assertThat(edge.getWeight()).isEqualTo(2);
+  }
+
+  @Test
+  public void testStrongest() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val prior = new InputCluster().new Node();
+    val output = new ActionCluster();
+    val posteriors = new ActionNode[20];
+    for (int i = 0; i < posteriors.length; ++i) {
+      posteriors[i] = output.new Node(() -> {
+      });
+      prior.getPosteriors().getEdge(posteriors[i], IntegrationProfile.TRANSIENT).set(i / 20f);
+    }
+    prior.getPosteriors().indexStrongest(3);
+    assertThat(prior.getPosteriors().strongest(3)).extracting(Connections.Entry::node)
+        .containsExactly(posteriors[19], posteriors[18], posteriors[17]);
+
+    prior.getPosteriors().getEdge(posteriors[0], IntegrationProfile.TRANSIENT).set(2);
+    prior.getPosteriors().getEdge(posteriors[19], IntegrationProfile.TRANSIENT).set(0);
+    prior.getPosteriors().scale(.5f);
+    assertThat(prior.getPosteriors().strongest(3)).extracting(Connections.Entry::node)
+        .containsExactly(posteriors[0], posteriors[18], posteriors[17]);
+
+    val it = prior.getPosteriors().iterator();
+    while (it.hasNext()) {
+      if (it.next().node() == posteriors[18]) {
+        it.remove();
+      }
+    }
+    assertThat(prior.getPosteriors().strongest(3))
+        .isEqualTo(prior.getPosteriors().strongest(posteriors.length).subList(0, 3))
+        .extracting(Connections.Entry::node)
+        .containsExactly(posteriors[0], posteriors[17], posteriors[16]);
+  }
+
+  @Test
+  public void testQuantize() {
+    Scheduler.global = new TestScheduler();
+
+    val input = new InputCluster();
+    val output = new ActionCluster();
+    val priors = new InputNode[10];
+    val posterior = output.new Node(() -> {
+    });
+    for (int i = 0; i < priors.length; ++i) {
+      priors[i] = input.new Node();
+      priors[i].activate();
+      priors[i].getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).set(-1 + i / 4.5f);
+    }
+
+    Cluster.freeze(input, FrozenDistribution.Precision.BYTE);
+    for (int i = 0; i < priors.length; ++i) {
+      val edge = priors[i].getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT);
+      assertTrue(edge.isFrozen());
+      assertThat(edge.getMode()).isCloseTo(-1 + i / 4.5f, within(1 / 254f));
+      assertThat(edge.getWeight()).isEqualTo(1);
+    }
+
+    assertThat(FrozenDistribution.Precision.HALF.round((float) Math.PI, 0))
+        .isCloseTo((float) Math.PI, withinPercentage(100 / 2048.))
+        .isNotEqualTo((float) Math.PI);
+    assertThat(FrozenDistribution.of(.3f, 1).quantized(FrozenDistribution.Precision.HALF, 0))
+        .isSameAs(FrozenDistribution.of(.30001f, 1).quantized(FrozenDistribution.Precision.HALF, 0));
+    assertThat(FrozenDistribution.Precision.HALF.encode(1, 0)).isEqualTo((short) 0x3c00);
+    assertThat(FrozenDistribution.Precision.HALF.encode(-2, 0)).isEqualTo((short) 0xc000);
+    assertThat(FrozenDistribution.Precision.HALF.encode(1e6f, 0)).isEqualTo((short) 0x7bff);
+    assertThat(FrozenDistribution.Precision.HALF.round(1e-6f, 0)).isCloseTo(1e-6f, within(0x1p-25f));
+
+    // Byte codes scale with the cluster scale rather than being re-rounded.
+    val quantized = FrozenDistribution.of(.5f, 1).quantized(FrozenDistribution.Precision.BYTE, 1);
+    assertThat(quantized.scaled(1 / 3f).getMode()).isEqualTo(quantized.getMode() / 3);
+  }
+}
@@ -125,4 +125,22 @@ public class DistributionTest {
     distribution.add(.8f, -1);
     assertEquals(1.2f, distribution.generate());
   }
+
+  /**
+   * Readers should never observe a partially applied update.
+   */
+  @Test
+  public void testConsistentReads() throws Exception {
+    val distribution = new UnimodalHypothesis(1, 1);
+    val writer = new Thread(() -> {
+      for (int i = 0; i < 100000; ++i) {
+        distribution.set(1, 1 + i % 2);
+      }
+    });
+    writer.start();
+    while (writer.isAlive()) {
+      assertEquals(1, distribution.getMode());
+    }
+    writer.join();
+  }
 }
@@ -0,0 +1,40 @@
+package ai.xng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class EdgePrunerTest {
+  private final NodeRegistry registry = new NodeRegistry();
+  private final InputCluster input = new InputCluster(registry);
+  private final ActionCluster output = new ActionCluster(registry, null);
+  private final EdgePruner pruner = new EdgePruner(registry);
+
+  @Test
+  public void testPrunesNegligibleEdges() {
+    val prior = input.new Node();
+    val kept = prior.then(output.new Node(() -> {
+    }));
+    val pruned = prior.then(output.new Node(() -> {
+    }));
+    prior.getPosteriors().getEdge(pruned, IntegrationProfile.TRANSIENT).set(0, 0);
+
+    assertThat(pruner.prune(Long.MAX_VALUE)).isEqualTo(1);
+    assertThat(prior.getPosteriors()).extracting(Connections.Entry::node).containsExactly(kept);
+    assertThat(pruned.getPriors()).isEmpty();
+    assertThat(pruner.getReclaimed().count(input)).isEqualTo(1);
+  }
+
+  @Test
+  public void testKeepsScaledEdges() {
+    val prior = input.new Node();
+    val posterior = prior.then(output.new Node(() -> {
+    }));
+    prior.getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).scale(1e-6f);
+
+    assertThat(pruner.prune(Long.MAX_VALUE)).isZero();
+    assertThat(posterior.getPriors()).hasSize(1);
+  }
+}
@@ -4,10 +4,28 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.function.BooleanSupplier;
 
 public class GcFixture {
   private static final long GC_PAUSE_MS = 1000;
   private static final int GC_ITERATIONS = 10;
+  private static final long POLL_PAUSE_MS = 100;
+
+  /**
+   * Collects garbage and runs {@code afterGc} until {@code done} holds, giving up
+   * after a bounded number of attempts. Callers assert on the outcome
+   * themselves.
+   */
+  public static void collectUntil(final BooleanSupplier done, final Runnable afterGc) throws InterruptedException {
+    for (int i = 0; i < GC_ITERATIONS && !done.getAsBoolean(); ++i) {
+      if (Thread.interrupted())
+        throw new InterruptedException();
+
+      System.gc();
+      Thread.sleep(POLL_PAUSE_MS);
+      afterGc.run();
+    }
+  }
 
   private final Serializable object;
   public final int initialSize;
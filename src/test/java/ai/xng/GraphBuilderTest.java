@@ -0,0 +1,37 @@
+package ai.xng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class GraphBuilderTest {
+  @Test
+  public void testCommit() {
+    val input = new InputCluster();
+    val output = new ActionCluster();
+    val hub = input.new Node();
+    val existing = hub.then(output.new Node(() -> {
+    }));
+
+    val graph = new GraphBuilder();
+    val posteriors = new ActionCluster.Node[100];
+    for (int i = 0; i < posteriors.length; ++i) {
+      posteriors[i] = graph.then(hub, output.new Node(() -> {
+      }));
+    }
+    graph.inhibit(hub, existing);
+    assertThat(hub.getPosteriors()).hasSize(1);
+
+    graph.commit();
+    assertThat(graph.size()).isZero();
+    assertThat(hub.getPosteriors()).hasSize(posteriors.length + 1);
+    for (val posterior : posteriors) {
+      assertThat(posterior.getPriors()).extracting(Connections.Entry::node).containsExactly(hub);
+      assertThat(hub.getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT).getMode())
+          .isEqualTo(Prior.DEFAULT_COEFFICIENT);
+    }
+    assertThat(hub.getPosteriors().getEdge(existing, IntegrationProfile.TRANSIENT).getMode()).isEqualTo(-1);
+  }
+}
@@ -0,0 +1,53 @@
+package ai.xng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class GraphCollectorTest {
+  private final NodeRegistry registry = new NodeRegistry();
+  private final InputCluster input = new InputCluster(registry);
+  private final BiCluster cluster = new BiCluster(registry, null);
+  private final GraphCollector collector = new GraphCollector(registry);
+
+  public GraphCollectorTest() {
+    Scheduler.global = new TestScheduler();
+    collector.addRootCluster(input);
+  }
+
+  @Test
+  public void testDetachesUnreachable() {
+    val root = input.new Node();
+    val reachable = root.then(cluster.new Node());
+    val leaf = reachable.then(cluster.new Node());
+    val orphan = cluster.new Node();
+    val orphanLeaf = orphan.then(cluster.new Node());
+    orphan.inhibit(leaf);
+
+    assertTrue(collector.collect(Long.MAX_VALUE));
+
+    assertThat(root.getPosteriors()).hasSize(1);
+    assertThat(reachable.getPosteriors()).hasSize(1);
+    assertThat(leaf.getPriors()).extracting(Connections.Entry::node).containsExactly(reachable);
+    assertThat(orphan.getPosteriors()).isEmpty();
+    assertThat(orphanLeaf.getPriors()).isEmpty();
+    assertThat(collector.getDetachedNodes()).isEqualTo(1);
+    assertThat(collector.getDetachedEdges()).isEqualTo(2);
+  }
+
+  @Test
+  public void testKeepsRecentlyActive() {
+    val orphan = cluster.new Node();
+    val orphanLeaf = orphan.then(cluster.new Node());
+    orphan.activate();
+
+    assertTrue(collector.collect(Long.MAX_VALUE));
+
+    assertThat(orphan.getPosteriors()).hasSize(1);
+    assertThat(orphanLeaf.getPriors()).hasSize(1);
+    assertThat(collector.getDetachedNodes()).isZero();
+  }
+}
@@ -0,0 +1,27 @@
+package ai.xng;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class IntegrationProfileTest {
+  private static final long INTERVAL = 100;
+
+  @Test
+  public void testInterning() throws Exception {
+    val profile = IntegrationProfile.fromEdges(INTERVAL, 2 * INTERVAL);
+    assertSame(profile, IntegrationProfile.of(0, INTERVAL, 3 * INTERVAL));
+    assertSame(profile, IntegrationProfile.byId(profile.id()));
+    assertSame(profile, TestUtil.serialize(profile));
+    assertSame(IntegrationProfile.TRANSIENT, IntegrationProfile.fromEdges(5, 45));
+  }
+
+  @Test
+  public void testRejectsEmptyRamps() {
+    assertThrows(IllegalArgumentException.class, () -> IntegrationProfile.of(INTERVAL, INTERVAL, 2 * INTERVAL));
+    assertThrows(IllegalArgumentException.class, () -> IntegrationProfile.fromEdges(INTERVAL, 0));
+  }
+}
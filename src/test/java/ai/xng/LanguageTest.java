@@ -7,6 +7,30 @@ import org.junit.jupiter.api.Test;
 import lombok.val;
 
 public class LanguageTest {
+  @Test
+  public void testFreezesSequences() {
+    Scheduler.global = new TestScheduler();
+
+    try (val kb = new KnowledgeBase()) {
+      new LanguageBootstrap(kb);
+      assertThat(kb.inputValue.onUpdate.getPosteriors())
+          .isNotEmpty()
+          .allMatch(entry -> entry.edge().isFrozen());
+
+      // Context nodes are associated at runtime, so they stay plastic.
+      int contextEdges = 0;
+      for (int id = 0; id < kb.registry.capacity(); ++id) {
+        if (kb.registry.get(id) instanceof BiCluster.Node node && node.getCluster() == kb.context) {
+          for (val entry : node.getPosteriors()) {
+            assertThat(entry.edge().isFrozen()).isFalse();
+            ++contextEdges;
+          }
+        }
+      }
+      assertThat(contextEdges).isPositive();
+    }
+  }
+
   @Test
   public void testHelloWorld() {
     val scheduler = new TestScheduler();
@@ -26,4 +50,29 @@ public class LanguageTest {
       assertThat(monitor.emissions()).containsExactly("Goodnight, moon!");
     }
   }
+
+  @Test
+  public void testHelloWorldAfterCollection() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    try (val kb = new KnowledgeBase()) {
+      new LanguageBootstrap(kb);
+      // Collection must not disconnect the bootstrapped structure, even once none
+      // of it is recent.
+      scheduler.fastForwardFor(Node.TRACE_SAMPLE_TTL);
+      kb.collector.collect(Long.MAX_VALUE);
+      val monitor = EmissionMonitor.fromObservable(kb.rxOutput());
+      kb.inputValue.setData("print(\"Hello, world!\")");
+      scheduler.fastForwardUntilIdle();
+      assertThat(monitor.emissions()).containsExactly("Hello, world!");
+
+      scheduler.fastForwardFor(Node.TRACE_SAMPLE_TTL);
+      kb.collector.collect(Long.MAX_VALUE);
+
+      kb.inputValue.setData("print(\"Goodnight, moon!\")");
+      scheduler.fastForwardUntilIdle();
+      assertThat(monitor.emissions()).containsExactly("Goodnight, moon!");
+    }
+  }
 }
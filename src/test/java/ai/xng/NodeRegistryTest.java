@@ -0,0 +1,113 @@
+package ai.xng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+public class NodeRegistryTest {
+  @Test
+  public void testDenseIds() {
+    val registry = new NodeRegistry();
+    val input = new InputCluster(registry);
+    val output = new ActionCluster(registry, null);
+    val a = input.new Node(), b = input.new Node();
+    val c = output.new Node(() -> {
+    });
+
+    assertThat(new int[] { a.getId(), b.getId(), c.getId() }).containsExactlyInAnyOrder(0, 1, 2);
+    assertThat(registry.capacity()).isEqualTo(3);
+  }
+
+  @Test
+  public void testLookup() {
+    val registry = new NodeRegistry();
+    val cluster = new BiCluster(registry, null);
+    val node = cluster.new Node();
+    assertSame(node, registry.get(node.getId()));
+    assertSame(node, registry.resolve(registry.handle(node.getId())));
+    assertNull(registry.get(node.getId() + 1));
+    assertThrows(IllegalArgumentException.class, () -> registry.handle(node.getId() + 1));
+  }
+
+  @Test
+  public void testLastActivation() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+    val registry = new NodeRegistry();
+    val node = new InputCluster(registry).new Node();
+    assertThat(node.getLastActivation()).isEmpty();
+    assertThat(registry.getLastActivation(node.getId())).isEqualTo(NodeRegistry.NEVER);
+
+    scheduler.fastForwardFor(5);
+    node.activate();
+    assertThat(node.getLastActivation()).contains(scheduler.now());
+    assertThat(registry.getLastActivation(node.getId())).isEqualTo(scheduler.now());
+
+    // Grow the column across several chunks.
+    val nodes = new ArrayList<InputCluster.Node>();
+    for (int i = 0; i < 1000; ++i) {
+      nodes.add(new InputCluster(registry).new Node());
+    }
+    scheduler.fastForwardFor(5);
+    nodes.get(999).activate();
+    assertThat(node.getLastActivation()).contains(scheduler.now() - 5);
+    assertThat(nodes.get(998).getLastActivation()).isEmpty();
+    assertThat(nodes.get(999).getLastActivation()).contains(scheduler.now());
+  }
+
+  @Test
+  public void testKnowledgeBaseOwnsRegistry() {
+    try (val kb = new KnowledgeBase()) {
+      val node = kb.context.new Node();
+      assertSame(kb.registry, kb.context.getRegistry());
+      assertSame(node, kb.registry.get(node.getId()));
+    }
+  }
+
+  @Test
+  public void testRecycling() throws Exception {
+    val registry = new NodeRegistry();
+    val cluster = new InputCluster(registry);
+    val handle = registry.handle(cluster.new Node().getId());
+
+    GcFixture.collectUntil(() -> registry.size() == 0, registry::reclaim);
+    assertThat(registry.size()).isZero();
+
+    val recycled = cluster.new Node();
+    assertThat(recycled.getId()).isEqualTo(NodeRegistry.id(handle));
+    assertNull(registry.resolve(handle));
+    assertSame(recycled, registry.resolve(registry.handle(recycled.getId())));
+  }
+
+  @Test
+  public void testReclaimReleasesEdges() throws Exception {
+    val registry = new NodeRegistry();
+    val input = new InputCluster(registry);
+    val posterior = new ActionCluster(registry, null).new Node(() -> {
+    });
+    for (int i = 0; i < 10; ++i) {
+      input.new Node().then(posterior);
+    }
+
+    GcFixture.collectUntil(() -> registry.getReclaimedIds() >= 10, registry::reclaim);
+    assertThat(registry.getReclaimedIds()).isEqualTo(10);
+    assertThat(registry.getReleasedEntries()).isEqualTo(10);
+    assertThat(posterior.getPriors()).isEmpty();
+  }
+
+  @Test
+  public void testReassignedAfterDeserialization() throws Exception {
+    val cluster = new InputCluster();
+    val node = cluster.new Node();
+    val deserialized = TestUtil.serialize(node);
+    assertSame(deserialized, NodeRegistry.DEFAULT.get(deserialized.getId()));
+    assertSame(node, NodeRegistry.DEFAULT.get(node.getId()));
+  }
+}
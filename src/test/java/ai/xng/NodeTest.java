@@ -8,6 +8,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
@@ -22,6 +24,65 @@ public class NodeTest {
     assertNotNull(TestUtil.serialize(new InputCluster().new Node()));
   }
 
+  @Test
+  public void testForEachRecent() {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val input = new InputCluster();
+    val posterior = new ActionCluster().new Node(() -> {
+    });
+    val stale = input.new Node(), recent = input.new Node(), unrelated = input.new Node();
+    stale.then(posterior);
+    recent.then(posterior);
+
+    stale.activate();
+    scheduler.fastForwardFor(IntegrationProfile.TRANSIENT.period());
+    recent.activate();
+    unrelated.activate();
+
+    val visited = new ArrayList<Prior>();
+    posterior.getPriors().forEachRecent(scheduler.now(), entry -> visited.add(entry.node()));
+    assertThat(visited).containsExactly(recent);
+  }
+
+  /**
+   * Gets the LTD weights of the first 8 of {@code count} posteriors of a prior,
+   * of which the even ones were active before the prior.
+   */
+  private static float[] ltdWeights(final int count) {
+    val scheduler = new TestScheduler();
+    Scheduler.global = scheduler;
+
+    val prior = new InputCluster().new Node();
+    val output = new ActionCluster();
+    val posteriors = new ActionNode[count];
+    for (int i = 0; i < posteriors.length; ++i) {
+      posteriors[i] = prior.then(output.new Node(() -> {
+      }));
+    }
+
+    final float[] weights = new float[8];
+    for (int i = 0; i < weights.length; i += 2) {
+      posteriors[i].activate();
+      scheduler.fastForwardFor(1);
+    }
+    prior.activate();
+
+    for (int i = 0; i < weights.length; ++i) {
+      weights[i] = prior.getPosteriors().getEdge(posteriors[i], IntegrationProfile.TRANSIENT).getWeight();
+    }
+    return weights;
+  }
+
+  @Test
+  public void testFanOut() {
+    val serial = ltdWeights(8);
+    assertThat(serial[0]).isLessThan(1);
+    assertThat(serial[1]).isEqualTo(1);
+    assertThat(ltdWeights(Prior.Trait.FAN_OUT_DEGREE)).containsExactly(serial);
+  }
+
   @Test
   public void testThen() {
     val scheduler = new TestScheduler();
@@ -238,4 +299,30 @@ public class NodeTest {
 
     assertThat(posterior.getPriors()).size().isEqualTo(1000);
   }
+
+  @Test
+  public void testConcurrentGetEdge() {
+    Scheduler.global = new TestScheduler();
+    val input = new InputCluster();
+    val output = new BiCluster();
+    val priors = new InputNode[64];
+    val posteriors = new BiNode[64];
+    for (int i = 0; i < priors.length; ++i) {
+      priors[i] = input.new Node();
+      posteriors[i] = output.new Node();
+    }
+
+    IntStream.range(0, priors.length * posteriors.length * 4).parallel().forEach(i -> priors[i % priors.length]
+        .getPosteriors().getEdge(posteriors[i / priors.length % posteriors.length], IntegrationProfile.TRANSIENT));
+
+    for (val prior : priors) {
+      assertThat(prior.getPosteriors()).size().isEqualTo(posteriors.length);
+    }
+    for (val posterior : posteriors) {
+      assertThat(posterior.getPriors()).size().isEqualTo(priors.length);
+      for (val entry : posterior.getPriors()) {
+        assertThat(entry.edge()).isSameAs(entry.node().getPosteriors().getEdge(posterior, IntegrationProfile.TRANSIENT));
+      }
+    }
+  }
 }
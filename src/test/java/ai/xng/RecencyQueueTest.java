@@ -2,6 +2,9 @@ package ai.xng;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.Test;
 
 import lombok.val;
@@ -86,4 +89,60 @@ public class RecencyQueueTest {
     tail.promote();
     assertThat(queue).containsExactly(1, 2);
   }
+
+  @Test
+  public void testRemove() {
+    val queue = new RecencyQueue<Integer>();
+    queue.new Link(1).promote();
+    val mid = queue.new Link(2);
+    mid.promote();
+    queue.new Link(3).promote();
+    mid.remove();
+    mid.remove();
+    assertThat(queue).containsExactly(3, 1);
+
+    val it = queue.iterator();
+    it.next();
+    it.remove();
+    assertThat(queue).containsExactly(1);
+  }
+
+  @Test
+  public void testCompaction() {
+    val queue = new RecencyQueue<Integer>();
+    val links = new ArrayList<RecencyQueue<Integer>.Link>();
+    for (int i = 0; i < 10; ++i) {
+      links.add(queue.new Link(i));
+    }
+    for (int i = 0; i < 1000; ++i) {
+      links.get(i % 10).promote();
+    }
+    assertThat(queue).containsExactly(9, 8, 7, 6, 5, 4, 3, 2, 1, 0);
+  }
+
+  @Test
+  public void testConcurrent() {
+    val queue = new RecencyQueue<Integer>();
+    val links = new ArrayList<RecencyQueue<Integer>.Link>();
+    for (int i = 0; i < 64; ++i) {
+      links.add(queue.new Link(i));
+    }
+
+    IntStream.range(0, 100000).parallel().forEach(i -> {
+      val link = links.get(i % links.size());
+      if (i % 7 == 0) {
+        link.remove();
+      } else {
+        link.promote();
+      }
+      if (i % 1000 == 0) {
+        assertThat(queue).doesNotHaveDuplicates();
+      }
+    });
+    links.forEach(RecencyQueue.Link::promote);
+
+    assertThat(queue).containsExactlyElementsOf(() -> IntStream.range(0, links.size())
+        .mapToObj(i -> links.size() - 1 - i)
+        .iterator());
+  }
 }
\ No newline at end of file
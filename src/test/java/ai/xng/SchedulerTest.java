@@ -409,4 +409,57 @@ public class SchedulerTest {
       flag[0] = false;
     }
   }
+
+  @Test
+  public void testReusableTaskReschedule() {
+    val scheduler = new FlexTimeScheduler(threadPool);
+    scheduler.pause();
+
+    val start = scheduler.now();
+    val runs = new ArrayList<Long>();
+    val task = scheduler.newTask(() -> runs.add(scheduler.now()));
+    task.schedule(start + 2 * DELAY);
+    task.schedule(start + DELAY);
+    scheduler.fastForwardUntil(start + 3 * DELAY);
+    assertThat(runs).containsExactly(start + DELAY);
+
+    scheduler.resume();
+  }
+
+  @Test
+  public void testReusableTaskCancel() {
+    val scheduler = new FlexTimeScheduler(threadPool);
+    scheduler.pause();
+
+    val start = scheduler.now();
+    val runs = new ArrayList<Long>();
+    val task = scheduler.newTask(() -> runs.add(scheduler.now()));
+    task.schedule(start + DELAY);
+    task.cancel();
+    scheduler.fastForwardUntil(start + 2 * DELAY);
+    assertThat(runs).isEmpty();
+
+    scheduler.resume();
+  }
+
+  @Test
+  public void testReusableTaskReschedulesItself() {
+    val scheduler = new FlexTimeScheduler(threadPool);
+    scheduler.pause();
+
+    val start = scheduler.now();
+    val runs = new ArrayList<Long>();
+    val task = new Scheduler.ReusableTask[1];
+    task[0] = scheduler.newTask(() -> {
+      runs.add(scheduler.now());
+      if (runs.size() < 3) {
+        task[0].schedule(scheduler.now() + DELAY);
+      }
+    });
+    task[0].schedule(start + DELAY);
+    scheduler.fastForwardUntil(start + 5 * DELAY);
+    assertThat(runs).containsExactly(start + DELAY, start + 2 * DELAY, start + 3 * DELAY);
+
+    scheduler.resume();
+  }
 }
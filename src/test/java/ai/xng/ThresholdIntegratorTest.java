@@ -22,6 +22,14 @@ public class ThresholdIntegratorTest {
     }
   };
 
+  private final ThresholdIntegrator fixedPointIntegrator = new ThresholdIntegrator(
+      BakingIntegrator.Arithmetic.FIXED_POINT) {
+    @Override
+    protected void onThreshold() {
+      output.add(scheduler.now());
+    }
+  };
+
   private ThresholdIntegratorTest() {
     Scheduler.global = scheduler;
   }
@@ -89,7 +97,7 @@ public class ThresholdIntegratorTest {
 
   @Test
   public void testAdjustBeforeCurve() {
-    val spike = integrator.add(new IntegrationProfile(INTERVAL, 2 * INTERVAL, 3 * INTERVAL), 1);
+    val spike = integrator.add(IntegrationProfile.of(INTERVAL, 2 * INTERVAL, 3 * INTERVAL), 1);
     spike.adjustRampUp(.75f / INTERVAL);
     scheduler.fastForwardFor(INTERVAL);
     assertEquals(0, integrator.getNormalizedCappedValue());
@@ -110,4 +118,31 @@ public class ThresholdIntegratorTest {
     scheduler.fastForwardUntilIdle();
     assertThat(output).containsExactly(INTERVAL);
   }
+
+  @Test
+  public void testFixedPointConjunction() {
+    val profile = IntegrationProfile.fromEdges(INTERVAL, 2 * INTERVAL);
+    fixedPointIntegrator.add(profile, .5f);
+    scheduler.fastForwardUntil(INTERVAL);
+    fixedPointIntegrator.add(profile, .75f);
+    scheduler.fastForwardUntilIdle();
+    assertThat(output).containsExactly(2 * INTERVAL);
+  }
+
+  @Test
+  public void testFixedPointPullDown() {
+    fixedPointIntegrator.add(IntegrationProfile.fromEdges(INTERVAL, INTERVAL), 2);
+    scheduler.fastForwardUntil(INTERVAL);
+    fixedPointIntegrator.add(IntegrationProfile.fromEdges(INTERVAL / 4, INTERVAL / 4), -1);
+    scheduler.fastForwardUntilIdle();
+    assertThat(output).containsExactly(INTERVAL / 2, 3 * INTERVAL / 2);
+  }
+
+  @Test
+  public void testFixedPointAdjust() {
+    val spike = fixedPointIntegrator.add(IntegrationProfile.fromEdges(INTERVAL, INTERVAL), 1);
+    spike.adjustRampUp(.75f / INTERVAL);
+    scheduler.fastForwardUntil(INTERVAL);
+    assertEquals(.75f, fixedPointIntegrator.getNormalizedCappedValue(), 1e-6f);
+  }
 }